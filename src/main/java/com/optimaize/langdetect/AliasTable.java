@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import java.util.Random;
+
+/**
+ * Draws an index 0-n with a chance proportional to its weight, in constant time per draw
+ * (Walker's alias method, built with Vose's algorithm).
+ *
+ * <p>Each of the n columns holds the total weight, split between the column's own index and at most one alias
+ * index. A draw picks a column and a point in it. All in integers, so the chances are exactly the weights
+ * divided by their sum.</p>
+ *
+ * <p>Meant to be rebuilt and reused, the arrays only grow. Not thread-safe.</p>
+ */
+final class AliasTable {
+
+    private int size;
+    private int total;
+    /**
+     * The part of the column that draws the column's own index, 0-total.
+     */
+    private int[] threshold = new int[0];
+    private int[] alias = new int[0];
+    //while building:
+    private long[] scaled = new long[0];
+    private int[] small = new int[0];
+    private int[] large = new int[0];
+
+    /**
+     * @param weights at least 1 each.
+     * @param size the number of weights to use, at least 1.
+     * @throws IllegalArgumentException if the sum of the weights does not fit into an int.
+     */
+    void build(int[] weights, int size) {
+        assert size >= 1;
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            assert weights[i] >= 1;
+            sum += weights[i];
+        }
+        if (sum > Integer.MAX_VALUE) throw new IllegalArgumentException("Total weight too large: " + sum);
+        if (threshold.length < size) {
+            int capacity = Math.max(size, threshold.length * 2);
+            threshold = new int[capacity];
+            alias = new int[capacity];
+            scaled = new long[capacity];
+            small = new int[capacity];
+            large = new int[capacity];
+        }
+        this.size = size;
+        this.total = (int) sum;
+
+        //each weight times size, so that the average is the total: one full column each.
+        int numSmall = 0, numLarge = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = (long) weights[i] * size;
+            if (scaled[i] < total) {
+                small[numSmall++] = i;
+            } else {
+                large[numLarge++] = i;
+            }
+        }
+        while (numSmall > 0 && numLarge > 0) {
+            int s = small[--numSmall];
+            int l = large[--numLarge];
+            threshold[s] = (int) scaled[s];
+            alias[s] = l;
+            //the large one fills the rest of the small one's column.
+            scaled[l] -= total - scaled[s];
+            if (scaled[l] < total) {
+                small[numSmall++] = l;
+            } else {
+                large[numLarge++] = l;
+            }
+        }
+        //what is left is exactly full.
+        while (numLarge > 0) {
+            int l = large[--numLarge];
+            threshold[l] = total;
+            alias[l] = l;
+        }
+        while (numSmall > 0) {
+            int s = small[--numSmall];
+            threshold[s] = total;
+            alias[s] = s;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return 0 to size-1
+     */
+    int draw(Random rand) {
+        int column = rand.nextInt(size);
+        return get(column, rand.nextInt(total));
+    }
+
+    /**
+     * @return the index that is drawn for this column and point.
+     * @param point 0 to the total weight -1
+     */
+    int get(int column, int point) {
+        return point < threshold[column] ? column : alias[column];
+    }
+
+}
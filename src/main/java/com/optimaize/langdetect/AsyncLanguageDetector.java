@@ -0,0 +1,166 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Runs a {@link LanguageDetector} on other threads, so that callers on event loop threads don't block.
+ *
+ * <p>The number of pending detections (queued plus running) is limited. When the limit is reached, new
+ * requests are not queued, they fail at once with a {@link RejectedExecutionException}. That's the back-pressure:
+ * the caller can then retry later, shed load, or detect on its own thread.</p>
+ *
+ * <p>By default it runs on its own executor. On Java 21+ (with the multi-release jar) that is a virtual thread
+ * per task, on older versions a pool of daemon threads, one per processor. A custom executor can be passed in
+ * instead.</p>
+ *
+ * <p>This class is thread-safe. Call {@link #close()} to stop the own executor.</p>
+ */
+public final class AsyncLanguageDetector implements AutoCloseable {
+
+    @NotNull
+    private final LanguageDetector detector;
+    @NotNull
+    private final Executor executor;
+    /**
+     * The own executor that is shut down on close, null if the executor was passed in.
+     */
+    @Nullable
+    private final ExecutorService ownExecutor;
+    @NotNull
+    private final Semaphore pending;
+    private final int maxPending;
+
+    /**
+     * Runs on its own executor, see class doc.
+     * @param maxPending 1-n, the maximal number of detections that are queued or running.
+     */
+    public AsyncLanguageDetector(@NotNull LanguageDetector detector, int maxPending) {
+        this(detector, DetectionExecutors.newExecutor(), true, maxPending);
+    }
+
+    /**
+     * @param executor Is not shut down by {@link #close()}.
+     * @param maxPending 1-n, the maximal number of detections that are queued or running.
+     */
+    public AsyncLanguageDetector(@NotNull LanguageDetector detector, @NotNull Executor executor, int maxPending) {
+        this(detector, executor, false, maxPending);
+    }
+
+    private AsyncLanguageDetector(LanguageDetector detector, Executor executor, boolean own, int maxPending) {
+        if (maxPending < 1) throw new IllegalArgumentException("maxPending must be at least 1, but was: " + maxPending);
+        this.detector = detector;
+        this.executor = executor;
+        this.ownExecutor = own ? (ExecutorService) executor : null;
+        this.pending = new Semaphore(maxPending);
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * See {@link LanguageDetector#detect(CharSequence)}.
+     * @return completes exceptionally with a {@link RejectedExecutionException} if too many are pending.
+     */
+    @NotNull
+    public CompletableFuture<Optional<LdLocale>> detect(@NotNull CharSequence text) {
+        return submit(text, detector::detect);
+    }
+
+    /**
+     * See {@link LanguageDetector#getProbabilities(CharSequence)}.
+     * @return completes exceptionally with a {@link RejectedExecutionException} if too many are pending.
+     */
+    @NotNull
+    public CompletableFuture<List<DetectedLanguage>> getProbabilities(@NotNull CharSequence text) {
+        return submit(text, detector::getProbabilities);
+    }
+
+    /**
+     * See {@link LanguageDetector#detect(CharSequence, DetectionOptions)}.
+     * @return completes exceptionally with a {@link RejectedExecutionException} if too many are pending.
+     */
+    @NotNull
+    public CompletableFuture<Optional<LdLocale>> detect(@NotNull CharSequence text, @NotNull DetectionOptions options) {
+        return submit(text, t -> detector.detect(t, options));
+    }
+
+    /**
+     * See {@link LanguageDetector#getProbabilities(CharSequence, DetectionOptions)}.
+     * @return completes exceptionally with a {@link RejectedExecutionException} if too many are pending.
+     */
+    @NotNull
+    public CompletableFuture<List<DetectedLanguage>> getProbabilities(@NotNull CharSequence text, @NotNull DetectionOptions options) {
+        return submit(text, t -> detector.getProbabilities(t, options));
+    }
+
+    /**
+     * @return the number of detections that are queued or running now.
+     */
+    public int getPending() {
+        return maxPending - pending.availablePermits();
+    }
+
+    private <R> CompletableFuture<R> submit(CharSequence text, Function<CharSequence, R> operation) {
+        if (!pending.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "Too many pending language detections, the limit is " + maxPending + "!"));
+        }
+        CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                R result;
+                try {
+                    result = operation.apply(text);
+                } catch (Throwable t) {
+                    pending.release();
+                    future.completeExceptionally(t);
+                    return;
+                }
+                //release first: dependent stages run in complete(), and may submit the next detection.
+                pending.release();
+                future.complete(result);
+            });
+        } catch (RejectedExecutionException e) {
+            //executor shut down or full.
+            pending.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Shuts down the own executor, detections already submitted still complete.
+     * Does nothing if the executor was passed in.
+     */
+    @Override
+    public void close() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+}
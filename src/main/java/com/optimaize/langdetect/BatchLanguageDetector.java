@@ -0,0 +1,182 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Detects the languages of many texts in parallel, on a {@link ForkJoinPool}.
+ *
+ * <p>The results are in the order of the input, and the same as from calling the {@link LanguageDetector}
+ * for one text after the other.</p>
+ *
+ * <p>Texts with equal content (compared by {@code toString()}) are only detected once per batch.
+ * The work is split into chunks, each chunk runs in one {@link DetectionSession}.</p>
+ *
+ * <p>This class is immutable and thus thread-safe (as long as the detector is).</p>
+ */
+public final class BatchLanguageDetector {
+
+    /**
+     * Chunks are not made smaller than this, to keep the task overhead low for short texts.
+     */
+    private static final int MIN_CHUNK_SIZE = 16;
+
+    /**
+     * How many chunks per thread of the pool, so that threads that finish early can steal work.
+     */
+    private static final int CHUNKS_PER_THREAD = 8;
+
+    @NotNull
+    private final LanguageDetector detector;
+    @NotNull
+    private final ForkJoinPool pool;
+
+    /**
+     * Uses the {@link ForkJoinPool#commonPool() common pool}.
+     */
+    public BatchLanguageDetector(@NotNull LanguageDetector detector) {
+        this(detector, ForkJoinPool.commonPool());
+    }
+
+    public BatchLanguageDetector(@NotNull LanguageDetector detector, @NotNull ForkJoinPool pool) {
+        this.detector = detector;
+        this.pool = pool;
+    }
+
+    /**
+     * See {@link LanguageDetector#detect(CharSequence)}.
+     * @return one entry per text, in the same order.
+     */
+    @NotNull
+    public List<Optional<LdLocale>> detectAll(@NotNull List<? extends CharSequence> texts) {
+        return runAll(texts, DetectionSession::detect, UnaryOperator.identity());
+    }
+
+    /**
+     * See {@link LanguageDetector#getProbabilities(CharSequence)}.
+     * @return one entry per text, in the same order. Equal texts get equal but separate lists.
+     */
+    @NotNull
+    public List<List<DetectedLanguage>> getProbabilitiesAll(@NotNull List<? extends CharSequence> texts) {
+        return runAll(texts, DetectionSession::getProbabilities, ArrayList::new);
+    }
+
+    /**
+     * See {@link LanguageDetector#detect(CharSequence, DetectionOptions)}.
+     * @return one entry per text, in the same order.
+     */
+    @NotNull
+    public List<Optional<LdLocale>> detectAll(@NotNull List<? extends CharSequence> texts, @NotNull DetectionOptions options) {
+        return runAll(texts, (session, text) -> session.detect(text, options), UnaryOperator.identity());
+    }
+
+    /**
+     * See {@link LanguageDetector#getProbabilities(CharSequence, DetectionOptions)}.
+     * @return one entry per text, in the same order. Equal texts get equal but separate lists.
+     */
+    @NotNull
+    public List<List<DetectedLanguage>> getProbabilitiesAll(@NotNull List<? extends CharSequence> texts, @NotNull DetectionOptions options) {
+        return runAll(texts, (session, text) -> session.getProbabilities(text, options), ArrayList::new);
+    }
+
+    /**
+     * @param copy makes the result for a repeated text from the result of its first occurrence.
+     */
+    private <R> List<R> runAll(List<? extends CharSequence> texts,
+                               BiFunction<DetectionSession, CharSequence, R> operation,
+                               UnaryOperator<R> copy) {
+        //step 1: find the distinct texts.
+        int[] distinctPos = new int[texts.size()];
+        List<CharSequence> distinct = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+        for (int i = 0; i < distinctPos.length; i++) {
+            CharSequence text = texts.get(i);
+            Integer pos = seen.putIfAbsent(text.toString(), distinct.size());
+            if (pos == null) {
+                pos = distinct.size();
+                distinct.add(text);
+            }
+            distinctPos[i] = pos;
+        }
+
+        //step 2: detect them.
+        Object[] results = new Object[distinct.size()];
+        if (!distinct.isEmpty()) {
+            int chunkSize = Math.max(MIN_CHUNK_SIZE, distinct.size() / (pool.getParallelism() * CHUNKS_PER_THREAD));
+            pool.invoke(new Chunk<>(distinct, results, 0, distinct.size(), chunkSize, operation));
+        }
+
+        //step 3: results in input order.
+        boolean[] used = new boolean[results.length];
+        List<R> list = new ArrayList<>(distinctPos.length);
+        for (int pos : distinctPos) {
+            @SuppressWarnings("unchecked")
+            R result = (R) results[pos];
+            list.add(used[pos] ? copy.apply(result) : result);
+            used[pos] = true;
+        }
+        return list;
+    }
+
+    /**
+     * Detects the texts from-to, or splits in two if that's more than the chunk size.
+     */
+    private final class Chunk<R> extends RecursiveAction {
+        private final List<CharSequence> texts;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final BiFunction<DetectionSession, CharSequence, R> operation;
+
+        Chunk(List<CharSequence> texts, Object[] results, int from, int to, int chunkSize,
+              BiFunction<DetectionSession, CharSequence, R> operation) {
+            this.texts = texts;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.operation = operation;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > chunkSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Chunk<>(texts, results, from, middle, chunkSize, operation),
+                          new Chunk<>(texts, results, middle, to, chunkSize, operation));
+            } else {
+                DetectionSession session = detector.newSession();
+                for (int i = from; i < to; i++) {
+                    results[i] = operation.apply(session, texts.get(i));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import com.optimaize.langdetect.text.CommonTextObjectFactories;
+import com.optimaize.langdetect.text.TextObject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The {@link StreamingDetector} for any {@link LanguageDetector}: collects the text, and runs the whole
+ * detection again when asked after new text came in.
+ *
+ * <p>{@link #isDone()} detects again only once the text doubled since the last time, so that reading a long
+ * text in small chunks costs at most about twice a detection of all of it, not one per chunk. So it may say
+ * false for a while after the text reached the stop confidence, and more text is read than needed.
+ * {@link #getProbabilities()} always detects the current text.</p>
+ */
+final class BufferingStreamingDetector implements StreamingDetector {
+
+    @NotNull
+    private final LanguageDetector detector;
+    private final double stopConfidence;
+    @NotNull
+    private final TextObject text = CommonTextObjectFactories.forDetectingShortCleanText().create();
+    /**
+     * For the text as it is now, null after an append.
+     */
+    @Nullable
+    private List<DetectedLanguage> probabilities;
+    /**
+     * The text length of the last detection, 0 if none.
+     */
+    private int detectedLength;
+    private boolean done;
+
+    BufferingStreamingDetector(@NotNull LanguageDetector detector, double stopConfidence) {
+        this.detector = detector;
+        this.stopConfidence = stopConfidence;
+    }
+
+    @NotNull
+    @Override
+    public StreamingDetector append(@NotNull CharSequence chunk) {
+        if (!done && chunk.length() > 0) {
+            text.append(chunk);
+            probabilities = null;
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isDone() {
+        if (!done && probabilities == null && text.length() >= 2 * detectedLength) {
+            getProbabilities();
+        }
+        return done;
+    }
+
+    @Override
+    public int getLength() {
+        return text.length();
+    }
+
+    @NotNull
+    @Override
+    public List<DetectedLanguage> getProbabilities() {
+        if (probabilities == null) {
+            probabilities = detector.getProbabilities(text);
+            detectedLength = text.length();
+            done |= !probabilities.isEmpty() && probabilities.get(0).getProbability() >= stopConfidence;
+        }
+        return probabilities;
+    }
+
+    @NotNull
+    @Override
+    public Optional<LdLocale> detect() {
+        return detector.detect(text);
+    }
+
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the results of a {@link LanguageDetector} for texts that come again, like UI strings, retweets
+ * and search queries.
+ *
+ * <p>The results are the same as without the cache. The text is not stored, it is identified by a 128 bit hash
+ * of its chars, so pass in the normalized {@link com.optimaize.langdetect.text.TextObject} (two texts that
+ * normalize to the same are then one entry). The hash is seeded per cache instance, so collisions can't be
+ * provoked from outside.</p>
+ *
+ * <p>The cache holds at most the given number of entries. It is split into segments with a lock each, by hash.
+ * Within a segment the least recently used entry is the candidate for eviction, but a new text only replaces it
+ * if it was asked for more often recently. That's counted approximately in a small sketch per segment, which
+ * halves its counts now and then to forget old traffic. So a burst of texts that come just once does not flush
+ * the texts that come all the time.</p>
+ *
+ * <p>The detection runs outside of the lock. If the same text is asked for at the same time by two threads,
+ * both may detect it.</p>
+ *
+ * <p>This class is thread-safe if the wrapped detector is.</p>
+ */
+public final class CachingLanguageDetector implements LanguageDetector {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    @NotNull
+    private final LanguageDetector detector;
+    @NotNull
+    private final Segment[] segments;
+    private final long seed = ThreadLocalRandom.current().nextLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries 1-n
+     */
+    public CachingLanguageDetector(@NotNull LanguageDetector detector, int maxEntries) {
+        this(detector, maxEntries, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * @param maxEntries 1-n
+     * @param segments 1-n, the number of locks. Rounded down to a power of 2, and to not more than maxEntries.
+     */
+    public CachingLanguageDetector(@NotNull LanguageDetector detector, int maxEntries, int segments) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be at least 1, but was: " + maxEntries);
+        if (segments < 1) throw new IllegalArgumentException("segments must be at least 1, but was: " + segments);
+        this.detector = detector;
+        int numSegments = Integer.highestOneBit(Math.min(segments, maxEntries));
+        this.segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            //spread the remainder, so that the sum is exactly maxEntries.
+            this.segments[i] = new Segment(maxEntries / numSegments + (i < maxEntries % numSegments ? 1 : 0));
+        }
+    }
+
+
+    @Override
+    public Optional<LdLocale> detect(CharSequence text) {
+        Key key = key(text);
+        Segment segment = segment(key);
+        Optional<LdLocale> cached = segment.getDetected(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        Optional<LdLocale> result = detector.detect(text);
+        segment.putDetected(key, result);
+        return result;
+    }
+
+    @Override
+    public List<DetectedLanguage> getProbabilities(CharSequence text) {
+        Key key = key(text);
+        Segment segment = segment(key);
+        List<DetectedLanguage> cached = segment.getProbabilities(key);
+        if (cached != null) {
+            hits.increment();
+            //a copy, the caller may modify it like the one of the detector.
+            return new ArrayList<>(cached);
+        }
+        misses.increment();
+        List<DetectedLanguage> result = detector.getProbabilities(text);
+        segment.putProbabilities(key, new ArrayList<>(result));
+        return result;
+    }
+
+    /**
+     * Not cached.
+     */
+    @Override
+    public Optional<LdLocale> detect(CharSequence text, DetectionOptions options) {
+        return detector.detect(text, options);
+    }
+
+    /**
+     * Not cached.
+     */
+    @Override
+    public List<DetectedLanguage> getProbabilities(CharSequence text, DetectionOptions options) {
+        return detector.getProbabilities(text, options);
+    }
+
+    /**
+     * Not cached, the wrapped detector's own streaming detector is used.
+     */
+    @Override
+    public StreamingDetector newStreamingDetector(double stopConfidence) {
+        return detector.newStreamingDetector(stopConfidence);
+    }
+
+    /**
+     * Not cached.
+     */
+    @Override
+    public List<LanguageSpan> segment(CharSequence text, int windowLength) {
+        return detector.segment(text, windowLength);
+    }
+
+
+    /**
+     * @return how often a result came from the cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return how often the wrapped detector was called.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return how often an entry was removed to make room for a more frequent one.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of texts in the cache now.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Removes all entries. The counters are not reset.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+
+    private Segment segment(Key key) {
+        return segments[(int) (key.high >>> 32) & (segments.length - 1)];
+    }
+
+    /**
+     * MurmurHash3 x64 128 over the UTF-16 chars, 8 per block.
+     */
+    @NotNull
+    private Key key(CharSequence text) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        long h1 = seed;
+        long h2 = seed;
+        int length = text.length();
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            long k1 = chars(text, i);
+            long k2 = chars(text, i + 4);
+            k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+            k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+        }
+        if (i < length) {
+            long k1 = 0;
+            long k2 = 0;
+            for (int j = i; j < length; j++) {
+                long c = text.charAt(j);
+                if (j - i < 4) k1 |= c << ((j - i) * 16);
+                else k2 |= c << ((j - i - 4) * 16);
+            }
+            k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+            k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+        }
+        h1 ^= length * 2L;
+        h2 ^= length * 2L;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new Key(h1, h2);
+    }
+
+    private static long chars(CharSequence text, int start) {
+        return text.charAt(start)
+                | (long) text.charAt(start + 1) << 16
+                | (long) text.charAt(start + 2) << 32
+                | (long) text.charAt(start + 3) << 48;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+
+    private static final class Key {
+        private final long high;
+        private final long low;
+
+        Key(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return high == key.high && low == key.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) low;
+        }
+    }
+
+    /**
+     * What is known about a text, the two methods are cached separately.
+     */
+    private static final class Entry {
+        @Nullable
+        private Optional<LdLocale> detected;
+        @Nullable
+        private List<DetectedLanguage> probabilities;
+    }
+
+    /**
+     * A part of the cache with its own lock: LRU order plus admission by frequency.
+     */
+    private final class Segment {
+        private final int capacity;
+        private final LinkedHashMap<Key, Entry> entries;
+        private final FrequencySketch sketch;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true);
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        /**
+         * @return null if not cached.
+         */
+        @Nullable
+        synchronized Optional<LdLocale> getDetected(Key key) {
+            sketch.increment(key.low);
+            Entry entry = entries.get(key);
+            return (entry == null) ? null : entry.detected;
+        }
+
+        /**
+         * @return null if not cached.
+         */
+        @Nullable
+        synchronized List<DetectedLanguage> getProbabilities(Key key) {
+            sketch.increment(key.low);
+            Entry entry = entries.get(key);
+            return (entry == null) ? null : entry.probabilities;
+        }
+
+        synchronized void putDetected(Key key, Optional<LdLocale> detected) {
+            Entry entry = admit(key);
+            if (entry != null) entry.detected = detected;
+        }
+
+        synchronized void putProbabilities(Key key, List<DetectedLanguage> probabilities) {
+            Entry entry = admit(key);
+            if (entry != null) entry.probabilities = probabilities;
+        }
+
+        /**
+         * @return the entry for the key, null if the key is not frequent enough to replace the eldest.
+         */
+        @Nullable
+        private Entry admit(Key key) {
+            Entry entry = entries.get(key);
+            if (entry != null) return entry;
+            if (entries.size() >= capacity) {
+                Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+                Key victim = eldest.next().getKey();
+                if (sketch.frequency(key.low) <= sketch.frequency(victim.low)) {
+                    return null;
+                }
+                eldest.remove();
+                evictions.increment();
+            }
+            entry = new Entry();
+            entries.put(key, entry);
+            return entry;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Approximate recent access counts: a count-min sketch with 4 rows of byte counters that saturate at 15.
+     * After 10 times the capacity increments all counts are halved. Not thread-safe, used under the segment lock.
+     *
+     * <p>Small capacities are treated like {@link #MIN_CAPACITY}, a sketch that is too narrow sees everything
+     * as frequent, and one that ages too fast forgets everything.</p>
+     */
+    private static final class FrequencySketch {
+        private static final int MAX_COUNT = 15;
+        private static final int MIN_CAPACITY = 64;
+        private final byte[] counts;
+        private final int mask;
+        private final int sampleSize;
+        private int increments;
+
+        FrequencySketch(int capacity) {
+            capacity = Math.max(capacity, MIN_CAPACITY);
+            int width = Integer.highestOneBit(capacity * 2 - 1) * 2;
+            this.counts = new byte[width * 4];
+            this.mask = width - 1;
+            this.sampleSize = 10 * capacity;
+        }
+
+        private int index(long hash, int row) {
+            int h = (int) (fmix(hash + row * 0x9E3779B97F4A7C15L) >>> 32);
+            return row * (mask + 1) + (h & mask);
+        }
+
+        void increment(long hash) {
+            for (int row = 0; row < 4; row++) {
+                int i = index(hash, row);
+                if (counts[i] < MAX_COUNT) counts[i]++;
+            }
+            if (++increments >= sampleSize) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] >>= 1;
+                }
+                increments /= 2;
+            }
+        }
+
+        int frequency(long hash) {
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < 4; row++) {
+                frequency = Math.min(frequency, counts[index(hash, row)]);
+            }
+            return frequency;
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+/**
+ * All probabilities in one row-major array: gram id &times; language.
+ *
+ * <p>The probability of the gram with id g in the language at position l is at
+ * {@code matrix[g * numLanguages + l]}.</p>
+ *
+ * <p>One single array instead of one per gram: no object headers and pointers per gram, the data of
+ * a gram is contiguous in memory, and the garbage collector has just one object to look at.</p>
+ */
+final class DenseProbabilityTable extends ProbabilityTable {
+
+    private final int numLanguages;
+    private final double[] matrix;
+    private final ScoringKernel kernel = ScoringKernel.get();
+
+    DenseProbabilityTable(int numGrams, int numLanguages) {
+        if ((long) numGrams * numLanguages > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many grams for the matrix: "+numGrams+" grams in "+numLanguages+" languages!");
+        }
+        this.numLanguages = numLanguages;
+        this.matrix = new double[numGrams * numLanguages];
+    }
+
+    @Override
+    void set(int gramId, int languagePos, double probability) {
+        matrix[gramId * numLanguages + languagePos] = probability;
+    }
+
+    @Override
+    int getNumGrams() {
+        return matrix.length / numLanguages;
+    }
+
+    @Override
+    int getNumLanguages() {
+        return numLanguages;
+    }
+
+    @Override
+    double getProbability(int gramId, int languagePos) {
+        return matrix[gramId * numLanguages + languagePos];
+    }
+
+    @Override
+    void update(int gramId, double[] prob, double weight, int count) {
+        //each value gets the same multiplications in the same order as one at a time, the results are identical.
+        ScoringKernel kernel = this.kernel;
+        int offset = gramId * numLanguages;
+        for (int amount = 0; amount < count; amount++) {
+            kernel.multiply(prob, matrix, offset, weight);
+        }
+    }
+
+    @Override
+    void addLogs(int gramId, double[] score, double weight, int count) {
+        double[] matrix = this.matrix;
+        int offset = gramId * numLanguages;
+        for (int i = 0; i < score.length; ++i) {
+            double p = matrix[offset + i];
+            if (weight > 0d) {
+                if (p != 0d) score[i] += count * Math.log(1d + p / weight);
+            } else {
+                score[i] += count * Math.log(p);
+            }
+        }
+    }
+
+    @Override
+    boolean isExact() {
+        return true;
+    }
+
+}
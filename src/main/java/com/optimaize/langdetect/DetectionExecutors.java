@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executor of the {@link AsyncLanguageDetector}.
+ *
+ * <p>This is the Java 11 version: a fixed pool of daemon threads, one per processor.
+ * The Java 21 layer of the multi-release jar replaces this class with one that starts a virtual thread per task.</p>
+ */
+final class DetectionExecutors {
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private DetectionExecutors() {
+    }
+
+    /**
+     * The queue is not bounded, the caller limits the number of tasks.
+     */
+    static ExecutorService newExecutor() {
+        String prefix = "language-detector-" + POOL_NUMBER.incrementAndGet() + "-";
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+}
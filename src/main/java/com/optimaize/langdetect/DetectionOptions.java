@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Settings for a single call to {@link LanguageDetector#getProbabilities(CharSequence, DetectionOptions)}
+ * and {@link LanguageDetector#detect(CharSequence, DetectionOptions)}, that replace the ones of the
+ * {@link LanguageDetectorBuilder} for that call.
+ *
+ * <p>This lets one detector, with one model in memory, serve callers that need different languages, priors or
+ * thresholds. Only the allowed languages are scored, the others are never returned.</p>
+ *
+ * <p>Example: {@code DetectionOptions.defaults().allowedLanguages(List.of(LdLocale.fromString("de"), LdLocale.fromString("fr"))).maxResults(1)}</p>
+ *
+ * <p>What is not set is taken from the detector. This class is immutable, create one per configuration and
+ * reuse it.</p>
+ *
+ * <p>{@link LanguageDetectorImpl} scores with the options. Other detectors and sessions by default apply them to
+ * the results without options, see {@link #apply(List)}.</p>
+ */
+public final class DetectionOptions {
+
+    private static final DetectionOptions DEFAULTS = new DetectionOptions(null, null, null, null, 0);
+
+    @Nullable
+    private final Set<LdLocale> allowedLanguages;
+    @Nullable
+    private final Map<LdLocale, Double> languagePriorities;
+    @Nullable
+    private final Double probabilityThreshold;
+    @Nullable
+    private final Double minimalConfidence;
+    private final int maxResults;
+
+    /**
+     * @return options that change nothing, the start for setting some.
+     */
+    @NotNull
+    public static DetectionOptions defaults() {
+        return DEFAULTS;
+    }
+
+    private DetectionOptions(@Nullable Set<LdLocale> allowedLanguages,
+                             @Nullable Map<LdLocale, Double> languagePriorities,
+                             @Nullable Double probabilityThreshold,
+                             @Nullable Double minimalConfidence,
+                             int maxResults) {
+        this.allowedLanguages = allowedLanguages;
+        this.languagePriorities = languagePriorities;
+        this.probabilityThreshold = probabilityThreshold;
+        this.minimalConfidence = minimalConfidence;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Only these languages are scored and returned.
+     *
+     * @param languages not empty, each must be loaded in the detector, or the detection throws.
+     */
+    @NotNull
+    public DetectionOptions allowedLanguages(@NotNull Collection<LdLocale> languages) {
+        if (languages.isEmpty()) throw new IllegalArgumentException("allowedLanguages must not be empty!");
+        return new DetectionOptions(Collections.unmodifiableSet(new LinkedHashSet<>(languages)), languagePriorities, probabilityThreshold, minimalConfidence, maxResults);
+    }
+
+    /**
+     * Replaces the {@link LanguageDetectorBuilder#languagePriorities} of the detector. An empty map means no
+     * priorities at all, also if the detector has some.
+     *
+     * @param languagePriorities key = language, value = priority 0-n. Languages that are not in the map get 0.
+     */
+    @NotNull
+    public DetectionOptions languagePriorities(@NotNull Map<LdLocale, Double> languagePriorities) {
+        for (Map.Entry<LdLocale, Double> entry : languagePriorities.entrySet()) {
+            if (entry.getValue() < 0d) {
+                throw new IllegalArgumentException("Priority must not be negative, but was: " + entry.getValue() + " for " + entry.getKey());
+            }
+        }
+        return new DetectionOptions(allowedLanguages, Collections.unmodifiableMap(new LinkedHashMap<>(languagePriorities)), probabilityThreshold, minimalConfidence, maxResults);
+    }
+
+    /**
+     * See {@link LanguageDetectorBuilder#probabilityThreshold}.
+     */
+    @NotNull
+    public DetectionOptions probabilityThreshold(double probabilityThreshold) {
+        if (probabilityThreshold < 0d || probabilityThreshold > 1d)
+            throw new IllegalArgumentException("probabilityThreshold must be between 0 and 1, but was: " + probabilityThreshold);
+        return new DetectionOptions(allowedLanguages, languagePriorities, probabilityThreshold, minimalConfidence, maxResults);
+    }
+
+    /**
+     * See {@link LanguageDetectorBuilder#minimalConfidence}.
+     */
+    @NotNull
+    public DetectionOptions minimalConfidence(double minimalConfidence) {
+        if (minimalConfidence < 0d || minimalConfidence > 1d)
+            throw new IllegalArgumentException("minimalConfidence must be between 0 and 1, but was: " + minimalConfidence);
+        return new DetectionOptions(allowedLanguages, languagePriorities, probabilityThreshold, minimalConfidence, maxResults);
+    }
+
+    /**
+     * {@link LanguageDetector#getProbabilities(CharSequence, DetectionOptions)} returns at most this many, the
+     * best ones.
+     *
+     * @param maxResults 1-n, or 0 for all (the default).
+     */
+    @NotNull
+    public DetectionOptions maxResults(int maxResults) {
+        if (maxResults < 0) throw new IllegalArgumentException("maxResults must be 0 or larger, but was: " + maxResults);
+        return new DetectionOptions(allowedLanguages, languagePriorities, probabilityThreshold, minimalConfidence, maxResults);
+    }
+
+    /**
+     * @return null for all languages of the detector.
+     */
+    @Nullable
+    public Set<LdLocale> getAllowedLanguages() {
+        return allowedLanguages;
+    }
+
+    /**
+     * @return null for the ones of the detector.
+     */
+    @Nullable
+    public Map<LdLocale, Double> getLanguagePriorities() {
+        return languagePriorities;
+    }
+
+    /**
+     * @return null for the one of the detector.
+     */
+    @Nullable
+    public Double getProbabilityThreshold() {
+        return probabilityThreshold;
+    }
+
+    /**
+     * @return null for the one of the detector.
+     */
+    @Nullable
+    public Double getMinimalConfidence() {
+        return minimalConfidence;
+    }
+
+    /**
+     * @return 0 for all.
+     */
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * The generic way for detectors that can't score with the options: from the results without options, keeps
+     * the allowed languages, multiplies with the priorities and makes the sum 1 again, then applies the threshold
+     * and the maximal number.
+     *
+     * <p>That's an approximation: the languages that were below the detector's threshold are missing, and the
+     * others don't compete with the excluded ones while scoring. If no language or priority is set, the
+     * probabilities are not changed.</p>
+     *
+     * @param probabilities sorted from better to worse, as returned by {@link LanguageDetector#getProbabilities(CharSequence)}.
+     *                      Not modified.
+     */
+    @NotNull
+    List<DetectedLanguage> apply(@NotNull List<DetectedLanguage> probabilities) {
+        boolean priorities = languagePriorities != null && !languagePriorities.isEmpty();
+        List<DetectedLanguage> list = new ArrayList<>(probabilities.size());
+        double sum = 0;
+        for (DetectedLanguage language : probabilities) {
+            if (allowedLanguages != null && !allowedLanguages.contains(language.getLocale())) continue;
+            double p = language.getProbability();
+            if (priorities) p *= languagePriorities.getOrDefault(language.getLocale(), 0d);
+            if (p <= 0d) continue;
+            list.add(new DetectedLanguage(language.getLocale(), p));
+            sum += p;
+        }
+        if (allowedLanguages != null || priorities) {
+            for (int i = 0; i < list.size(); i++) {
+                list.set(i, new DetectedLanguage(list.get(i).getLocale(), list.get(i).getProbability() / sum));
+            }
+            Collections.sort(list);
+        }
+        if (probabilityThreshold != null) {
+            list.removeIf(language -> language.getProbability() < probabilityThreshold);
+        }
+        if (maxResults > 0 && list.size() > maxResults) {
+            list.subList(maxResults, list.size()).clear();
+        }
+        return list;
+    }
+
+    /**
+     * The counterpart of {@link #apply(List)} for {@link LanguageDetector#detect(CharSequence)}: the best
+     * of the results if it is confident enough. Without a minimal confidence in the options, the one of the
+     * builder's default is used.
+     */
+    @NotNull
+    Optional<LdLocale> best(@NotNull List<DetectedLanguage> probabilities) {
+        List<DetectedLanguage> list = apply(probabilities);
+        double confidence = (minimalConfidence == null) ? LanguageDetectorBuilder.MINIMAL_CONFIDENCE_DEFAULT : minimalConfidence;
+        if (list.isEmpty() || list.get(0).getProbability() < confidence) return Optional.empty();
+        return Optional.of(list.get(0).getLocale());
+    }
+
+    /**
+     * @return true if {@link LanguageDetector#detect(CharSequence)} gives the same as with these options.
+     */
+    boolean isDefaultForDetect() {
+        return allowedLanguages == null && languagePriorities == null && probabilityThreshold == null && minimalConfidence == null;
+    }
+
+    @Override
+    public String toString() {
+        return "DetectionOptions{" +
+                "allowedLanguages=" + allowedLanguages +
+                ", languagePriorities=" + languagePriorities +
+                ", probabilityThreshold=" + probabilityThreshold +
+                ", minimalConfidence=" + minimalConfidence +
+                ", maxResults=" + maxResults +
+                '}';
+    }
+
+}
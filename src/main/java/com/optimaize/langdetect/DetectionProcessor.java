@@ -0,0 +1,388 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A reactive streams stage that detects the language of each text, see {@link Flow}.
+ *
+ * <p>Back-pressure: at most {@code maxBuffered} texts are requested from upstream that have not yet been
+ * emitted downstream. The next ones are only requested when results were handed on. When the downstream
+ * subscribers are slow, the worker that emits waits (see {@link SubmissionPublisher#submit}), so nothing piles
+ * up in between. Upstream is only asked for texts once there is a subscriber.</p>
+ *
+ * <p>Only one worker at a time hands results on, outside of any lock; the others leave their results to it and
+ * go on. The waiting worker needs the delivery to the subscribers to run, so the executors must not be
+ * saturated: with a bounded thread pool that is used for both, keep {@code parallelism} below its number of
+ * threads, or give a separate {@link Builder#deliveryExecutor delivery executor}. The default common pool
+ * adds threads for blocked ones.</p>
+ *
+ * <p>The texts are detected by up to {@code parallelism} workers on the executor. A worker takes the texts
+ * that have arrived in micro-batches of up to {@code batchSize}, and keeps one {@link DetectionSession}
+ * for all of them. If the order is preserved, results that are ready early wait for the ones before them.</p>
+ *
+ * <p>If detection fails, or upstream signals an error, the downstream subscribers get the error.
+ * When all downstream subscribers cancelled, the upstream subscription is cancelled.</p>
+ *
+ * <p>Create with {@link #builder(LanguageDetector)}. A processor can be subscribed to one upstream publisher.</p>
+ */
+public final class DetectionProcessor implements Flow.Processor<CharSequence, DetectionResult> {
+
+    @NotNull
+    private final LanguageDetector detector;
+    @NotNull
+    private final Executor executor;
+    private final int parallelism;
+    private final int batchSize;
+    private final int maxBuffered;
+    private final boolean preserveOrder;
+    @NotNull
+    private final DetectionOptions options;
+    @NotNull
+    private final SubmissionPublisher<DetectionResult> publisher;
+
+    private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+    private final AtomicBoolean requesting = new AtomicBoolean();
+    private volatile boolean hasSubscriber;
+    private volatile boolean upstreamDone;
+
+    private final ConcurrentLinkedQueue<Item> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    /**
+     * Only incremented in onNext, which is never called concurrently.
+     */
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong emitted = new AtomicLong();
+
+    /**
+     * For the order: results that wait for earlier ones, by sequence number. Guarded by itself.
+     */
+    private final Map<Long, DetectionResult> waiting = new HashMap<>();
+    /**
+     * The sequence number of the next result to emit in order. Guarded by {@link #waiting}.
+     */
+    private long nextToEmit;
+    /**
+     * The results to hand on, in order. See {@link #drain()}.
+     */
+    private final ConcurrentLinkedQueue<DetectionResult> ready = new ConcurrentLinkedQueue<>();
+    /**
+     * How often {@link #drain()} was called and not yet caught up with, 0 if no thread is draining.
+     */
+    private final AtomicInteger drainCalls = new AtomicInteger();
+
+    private DetectionProcessor(Builder builder) {
+        this.detector = builder.detector;
+        this.executor = builder.executor;
+        this.parallelism = builder.parallelism;
+        this.batchSize = builder.batchSize;
+        this.maxBuffered = builder.maxBuffered;
+        this.preserveOrder = builder.preserveOrder;
+        this.options = builder.options;
+        this.publisher = new SubmissionPublisher<>(
+                builder.deliveryExecutor != null ? builder.deliveryExecutor : builder.executor, builder.maxBuffered);
+    }
+
+    @NotNull
+    public static Builder builder(@NotNull LanguageDetector detector) {
+        return new Builder(detector);
+    }
+
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super DetectionResult> subscriber) {
+        publisher.subscribe(subscriber);
+        hasSubscriber = true;
+        startRequesting();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (!upstream.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+        startRequesting();
+    }
+
+    /**
+     * The initial demand, once there is an upstream and a downstream.
+     */
+    private void startRequesting() {
+        Flow.Subscription subscription = upstream.get();
+        if (subscription != null && hasSubscriber && requesting.compareAndSet(false, true)) {
+            subscription.request(maxBuffered);
+        }
+    }
+
+    @Override
+    public void onNext(CharSequence text) {
+        queue.add(new Item(received.getAndIncrement(), text));
+        maybeStartWorker();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        queue.clear();
+        publisher.closeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        completeIfDone();
+    }
+
+    private void completeIfDone() {
+        if (upstreamDone && emitted.get() == received.get()) {
+            publisher.close();
+        }
+    }
+
+    private void maybeStartWorker() {
+        while (!queue.isEmpty()) {
+            int active = activeWorkers.get();
+            if (active >= parallelism) return;
+            if (activeWorkers.compareAndSet(active, active + 1)) {
+                try {
+                    executor.execute(this::work);
+                } catch (RejectedExecutionException e) {
+                    activeWorkers.decrementAndGet();
+                    fail(e);
+                }
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        try {
+            DetectionSession session = detector.newSession();
+            List<Item> batch = new ArrayList<>(batchSize);
+            while (true) {
+                Item item;
+                while (batch.size() < batchSize && (item = queue.poll()) != null) {
+                    batch.add(item);
+                }
+                if (batch.isEmpty()) break;
+                for (Item each : batch) {
+                    each.result = new DetectionResult(each.text, session.getProbabilities(each.text, options));
+                }
+                emit(batch);
+                batch.clear();
+            }
+        } catch (Throwable e) {
+            //also an Error, or the subscribers would wait forever.
+            fail(e);
+            if (e instanceof Error) throw (Error) e;
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+        //a text may have arrived after the last poll, but before the decrement:
+        maybeStartWorker();
+    }
+
+    private void emit(List<Item> batch) {
+        if (preserveOrder) {
+            synchronized (waiting) {
+                for (Item item : batch) {
+                    waiting.put(item.sequence, item.result);
+                }
+                DetectionResult result;
+                while ((result = waiting.remove(nextToEmit)) != null) {
+                    ready.add(result);
+                    nextToEmit++;
+                }
+            }
+        } else {
+            for (Item item : batch) {
+                ready.add(item.result);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Hands on the ready results. If another thread is at it already, that one takes these too, so the order
+     * stays and only one worker waits when the subscribers are slow.
+     */
+    private void drain() {
+        if (drainCalls.getAndIncrement() != 0) return;
+        int missed = 1;
+        do {
+            int count = 0;
+            DetectionResult result;
+            try {
+                while (!publisher.isClosed() && (result = ready.poll()) != null) {
+                    publisher.submit(result);
+                    count++;
+                }
+            } catch (IllegalStateException e) {
+                //closed by a failure meanwhile.
+            } catch (RuntimeException e) {
+                //the delivery executor rejected.
+                fail(e);
+            }
+            if (publisher.isClosed()) {
+                //failed, nobody takes the rest. Done ones are never left over, see completeIfDone().
+                ready.clear();
+            } else if (count > 0) {
+                emitted.addAndGet(count);
+                if (publisher.getNumberOfSubscribers() == 0) {
+                    //all cancelled.
+                    upstream.get().cancel();
+                } else {
+                    completeIfDone();
+                    upstream.get().request(count);
+                }
+            }
+            missed = drainCalls.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void fail(Throwable e) {
+        queue.clear();
+        Flow.Subscription subscription = upstream.get();
+        if (subscription != null) subscription.cancel();
+        publisher.closeExceptionally(e);
+    }
+
+
+    /**
+     * A text with its sequence number, and later its result.
+     */
+    private static final class Item {
+        final long sequence;
+        final CharSequence text;
+        DetectionResult result;
+
+        Item(long sequence, CharSequence text) {
+            this.sequence = sequence;
+            this.text = text;
+        }
+    }
+
+
+    /**
+     * Creates a {@link DetectionProcessor}.
+     */
+    public static final class Builder {
+
+        @NotNull
+        private final LanguageDetector detector;
+        @NotNull
+        private Executor executor = ForkJoinPool.commonPool();
+        @Nullable
+        private Executor deliveryExecutor;
+        private int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        private int batchSize = 32;
+        private int maxBuffered = 256;
+        private boolean preserveOrder = true;
+        @NotNull
+        private DetectionOptions options = DetectionOptions.defaults();
+
+        private Builder(@NotNull LanguageDetector detector) {
+            this.detector = detector;
+        }
+
+        /**
+         * Runs the workers, and delivers to the subscribers unless there is a {@link #deliveryExecutor}.
+         * Defaults to the {@link ForkJoinPool#commonPool() common pool}.
+         */
+        public Builder executor(@NotNull Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Delivers to the subscribers. Defaults to the {@link #executor}. A separate one makes sure that the
+         * delivery gets a thread when the workers use up all threads of a bounded executor, see the class doc.
+         */
+        public Builder deliveryExecutor(@NotNull Executor deliveryExecutor) {
+            this.deliveryExecutor = deliveryExecutor;
+            return this;
+        }
+
+        /**
+         * The maximal number of workers that detect at the same time.
+         * Defaults to the parallelism of the common pool.
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * The maximal number of texts a worker takes at once. Defaults to 32.
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * The maximal number of texts that were requested from upstream but not yet emitted downstream.
+         * This is also the buffer size per downstream subscriber. Defaults to 256.
+         */
+        public Builder maxBuffered(int maxBuffered) {
+            this.maxBuffered = maxBuffered;
+            return this;
+        }
+
+        /**
+         * Defaults to true: the results come in the order of the texts.
+         * With false they come as soon as they are ready.
+         */
+        public Builder preserveOrder(boolean preserveOrder) {
+            this.preserveOrder = preserveOrder;
+            return this;
+        }
+
+        /**
+         * The settings for all texts of this processor, see {@link LanguageDetector#getProbabilities(CharSequence, DetectionOptions)}.
+         * Defaults to {@link DetectionOptions#defaults()}, the detector's own settings.
+         */
+        public Builder options(@NotNull DetectionOptions options) {
+            this.options = options;
+            return this;
+        }
+
+        public DetectionProcessor build() {
+            if (parallelism < 1) throw new IllegalArgumentException("parallelism must be at least 1, but was: " + parallelism);
+            if (batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1, but was: " + batchSize);
+            if (maxBuffered < 1) throw new IllegalArgumentException("maxBuffered must be at least 1, but was: " + maxBuffered);
+            return new DetectionProcessor(this);
+        }
+    }
+
+}
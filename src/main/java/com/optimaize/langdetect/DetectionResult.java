@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A text together with its detected languages, as emitted by the {@link DetectionProcessor}.
+ *
+ * <p>This class is immutable (as long as the text is not modified).</p>
+ */
+public final class DetectionResult {
+
+    @NotNull
+    private final CharSequence text;
+    @NotNull
+    private final List<DetectedLanguage> probabilities;
+
+    /**
+     * @param probabilities as from {@link LanguageDetector#getProbabilities}, sorted from better to worse.
+     */
+    public DetectionResult(@NotNull CharSequence text, @NotNull List<DetectedLanguage> probabilities) {
+        this.text = text;
+        this.probabilities = List.copyOf(probabilities);
+    }
+
+    /**
+     * @return the input text, the same object.
+     */
+    @NotNull
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * See {@link LanguageDetector#getProbabilities}.
+     * @return immutable, may be empty.
+     */
+    @NotNull
+    public List<DetectedLanguage> getProbabilities() {
+        return probabilities;
+    }
+
+    /**
+     * @return the first of the {@link #getProbabilities()}, absent if there is none.
+     *         Note that this is not as strict as {@link LanguageDetector#detect}, there is no minimal confidence.
+     */
+    @NotNull
+    public Optional<LdLocale> getBestLanguage() {
+        return probabilities.isEmpty() ? Optional.empty() : Optional.of(probabilities.get(0).getLocale());
+    }
+
+    @Override
+    public String toString() {
+        return "DetectionResult[" + probabilities + "]";
+    }
+
+}
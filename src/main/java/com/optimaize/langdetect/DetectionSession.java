@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Detects with the shared model of a {@link LanguageDetector}, and keeps the working memory (probability arrays,
+ * random generator, gram lists) from one call to the next. Repeated calls don't create that garbage again.
+ *
+ * <p>Get one from {@link LanguageDetector#newSession()}. The results are the same as from the detector.</p>
+ *
+ * <p>A session is not thread-safe, use one per thread. It is cheap to create, and keeps its buffers at the
+ * size of the largest text seen so far.</p>
+ */
+public interface DetectionSession {
+
+    /**
+     * See {@link LanguageDetector#detect(CharSequence)}.
+     */
+    Optional<LdLocale> detect(CharSequence text);
+
+    /**
+     * See {@link LanguageDetector#getProbabilities(CharSequence)}.
+     */
+    List<DetectedLanguage> getProbabilities(CharSequence text);
+
+    /**
+     * See {@link LanguageDetector#detect(CharSequence, DetectionOptions)}, the default implementation works the
+     * same as the one there.
+     */
+    default Optional<LdLocale> detect(CharSequence text, DetectionOptions options) {
+        if (options.isDefaultForDetect()) return detect(text);
+        return options.best(getProbabilities(text));
+    }
+
+    /**
+     * See {@link LanguageDetector#getProbabilities(CharSequence, DetectionOptions)}, the default implementation
+     * works the same as the one there.
+     */
+    default List<DetectedLanguage> getProbabilities(CharSequence text, DetectionOptions options) {
+        return options.apply(getProbabilities(text));
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.ngram.GramCodes;
+import com.optimaize.langdetect.ngram.GramConsumer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable list of packed grams, to be filled by
+ * {@link com.optimaize.langdetect.ngram.NgramExtractor#extractGrams(CharSequence, GramConsumer)}.
+ *
+ * <p>Or with their gram ids by a {@link TrieGramExtractor}, then {@link #hasGramIds()} is true until the next
+ * {@link #clear()}.</p>
+ *
+ * <p>Meant to be cleared and reused, then nothing is allocated per text once it is large enough.
+ * Not thread-safe.</p>
+ */
+final class GramCodeBuffer implements GramConsumer, GramIdConsumer {
+
+    private long[] codes;
+    private long[] spare;
+    //only if filled with ids, as long as the codes then.
+    private int[] gramIds;
+    private int[] spareIds;
+    private boolean hasGramIds;
+    private int size;
+
+    GramCodeBuffer() {
+        this(64);
+    }
+
+    /**
+     * @param capacity the number of grams that fit without growing.
+     */
+    GramCodeBuffer(int capacity) {
+        codes = new long[Math.max(capacity, 1)];
+        spare = new long[0];
+    }
+
+    @Override
+    public void accept(long gramCode) {
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+        }
+        codes[size++] = gramCode;
+    }
+
+    @Override
+    public void accept(long gramCode, int gramId) {
+        assert hasGramIds || size == 0;
+        if (gramIds == null || gramIds.length < codes.length) {
+            gramIds = (gramIds == null) ? new int[codes.length] : Arrays.copyOf(gramIds, codes.length);
+        }
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+            gramIds = Arrays.copyOf(gramIds, size * 2);
+        }
+        gramIds[size] = gramId;
+        codes[size++] = gramCode;
+        hasGramIds = true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long get(int index) {
+        assert index < size;
+        return codes[index];
+    }
+
+    /**
+     * @return true if filled with the gram ids, see {@link #getGramId}.
+     */
+    boolean hasGramIds() {
+        return hasGramIds;
+    }
+
+    /**
+     * @return the gram id, -1 if unknown. Only if {@link #hasGramIds()}.
+     */
+    int getGramId(int index) {
+        assert hasGramIds && index < size;
+        return gramIds[index];
+    }
+
+    void clear() {
+        size = 0;
+        hasGramIds = false;
+    }
+
+    /**
+     * Reorders the grams so that all of the first gram length come first, then the second length and so on,
+     * each in the order they were added. That is the order of
+     * {@link com.optimaize.langdetect.ngram.NgramExtractor#extractGrams(CharSequence)}.
+     * @param gramLengths all lengths that occur, each 1-{@link GramCodes#MAX_LENGTH}.
+     */
+    void groupByLength(List<Integer> gramLengths) {
+        if (gramLengths.size() < 2) return;
+        int[] start = new int[GramCodes.MAX_LENGTH + 1];
+        for (int i = 0; i < size; i++) {
+            start[GramCodes.length(codes[i])]++;
+        }
+        int next = 0;
+        for (int gramLength : gramLengths) {
+            int count = start[gramLength];
+            start[gramLength] = next;
+            next += count;
+        }
+        //as long as the codes, so that it can grow after the swap.
+        if (spare.length < codes.length) {
+            spare = new long[codes.length];
+        }
+        if (hasGramIds && (spareIds == null || spareIds.length < codes.length)) {
+            spareIds = new int[codes.length];
+        }
+        for (int i = 0; i < size; i++) {
+            long code = codes[i];
+            int to = start[GramCodes.length(code)]++;
+            spare[to] = code;
+            if (hasGramIds) spareIds[to] = gramIds[i];
+        }
+        long[] grouped = spare;
+        spare = codes;
+        codes = grouped;
+        if (hasGramIds) {
+            int[] groupedIds = spareIds;
+            spareIds = gramIds;
+            gramIds = groupedIds;
+        }
+    }
+
+}
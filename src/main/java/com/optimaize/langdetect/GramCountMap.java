@@ -0,0 +1,242 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.ngram.GramCodes;
+import com.optimaize.langdetect.ngram.GramConsumer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Counts packed grams (see {@link GramCodes}) in the order they first occurred, like a
+ * {@code LinkedHashMap<String,Integer>} but without objects per gram.
+ *
+ * <p>Open addressing with linear probing like the {@link LongGramIndex}, the table slot holds the count, so
+ * counting a gram that is already contained touches just the slot. The insertion order is kept in parallel
+ * arrays of the codes and their slots, addressed by index 0 to {@link #size()}.</p>
+ *
+ * <p>Or filled with the gram ids by a {@link TrieGramExtractor}, then {@link #hasGramIds()} is true until the next
+ * {@link #clear()}. The id is kept in the slot, from the first time the gram was added.</p>
+ *
+ * <p>Meant to be cleared and reused: {@link #clear()} only resets the slots in use, and nothing is allocated
+ * once it is large enough. Not thread-safe.</p>
+ */
+final class GramCountMap implements GramConsumer, GramIdConsumer {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    //the hash table, the key 0 marks a free slot.
+    private long[] keys;
+    private int[] countOfSlot;
+    //only if filled with ids.
+    private int[] idOfSlot;
+    private boolean hasGramIds;
+    private int mask;
+    private int shift;
+
+    //the entries in insertion order.
+    private long[] codes;
+    private int[] slotOfEntry;
+    private int size;
+
+    //for groupByLength(), swapped with the entry arrays.
+    private long[] spareCodes = new long[0];
+    private int[] spareSlots = new int[0];
+
+    GramCountMap() {
+        this(32);
+    }
+
+    /**
+     * @param expectedSize the number of distinct grams that fit without growing.
+     */
+    GramCountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        allocateTable(capacity);
+        codes = new long[capacity / 2];
+        slotOfEntry = new int[capacity / 2];
+    }
+
+    private void allocateTable(int capacity) {
+        keys = new long[capacity];
+        countOfSlot = new int[capacity];
+        if (idOfSlot != null) idOfSlot = new int[capacity];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private int slot(long key) {
+        return (int) ((key * GOLDEN) >>> shift);
+    }
+
+    @Override
+    public void accept(long gramCode) {
+        add(gramCode, 1);
+    }
+
+    @Override
+    public void accept(long gramCode, int gramId) {
+        assert hasGramIds || size == 0;
+        if (idOfSlot == null) idOfSlot = new int[keys.length];
+        hasGramIds = true;
+        int slot = add(gramCode, 1);
+        if (slot != -1) idOfSlot[slot] = gramId;
+    }
+
+    /**
+     * @param gramCode a valid code, not 0.
+     * @return the slot if the gram is new, -1 if it was contained already.
+     */
+    int add(long gramCode, int count) {
+        int i = slot(gramCode);
+        while (true) {
+            long k = keys[i];
+            if (k == gramCode) {
+                countOfSlot[i] += count;
+                return -1;
+            }
+            if (k == 0L) {
+                break;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+            slotOfEntry = Arrays.copyOf(slotOfEntry, size * 2);
+        }
+        keys[i] = gramCode;
+        countOfSlot[i] = count;
+        codes[size] = gramCode;
+        slotOfEntry[size] = i;
+        if (++size * 2 > keys.length) {
+            rehash();
+            return slotOfEntry[size - 1];
+        }
+        return i;
+    }
+
+    /**
+     * @return the count, 0 if not contained.
+     */
+    int get(long gramCode) {
+        int i = slot(gramCode);
+        while (true) {
+            long k = keys[i];
+            if (k == gramCode) return countOfSlot[i];
+            if (k == 0L) return 0;
+            i = (i + 1) & mask;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index 0 to size-1, in insertion order.
+     */
+    long code(int index) {
+        assert index < size;
+        return codes[index];
+    }
+
+    /**
+     * @param index 0 to size-1, in insertion order.
+     */
+    int count(int index) {
+        assert index < size;
+        return countOfSlot[slotOfEntry[index]];
+    }
+
+    /**
+     * @return true if filled with the gram ids, see {@link #gramId}.
+     */
+    boolean hasGramIds() {
+        return hasGramIds;
+    }
+
+    /**
+     * @param index 0 to size-1, in insertion order.
+     * @return the gram id, -1 if unknown. Only if {@link #hasGramIds()}.
+     */
+    int gramId(int index) {
+        assert hasGramIds && index < size;
+        return idOfSlot[slotOfEntry[index]];
+    }
+
+    void clear() {
+        for (int e = 0; e < size; e++) {
+            keys[slotOfEntry[e]] = 0L;
+        }
+        size = 0;
+        hasGramIds = false;
+    }
+
+    /**
+     * Reorders the entries so that all of the first gram length come first, then the second length and so on,
+     * each in insertion order. That is the order of
+     * {@link com.optimaize.langdetect.ngram.NgramExtractor#extractCountedGrams(CharSequence)}.
+     * @param gramLengths all lengths that occur, each 1-{@link GramCodes#MAX_LENGTH}.
+     */
+    void groupByLength(List<Integer> gramLengths) {
+        if (gramLengths.size() < 2) return;
+        int[] start = new int[GramCodes.MAX_LENGTH + 1];
+        for (int e = 0; e < size; e++) {
+            start[GramCodes.length(codes[e])]++;
+        }
+        int next = 0;
+        for (int gramLength : gramLengths) {
+            int count = start[gramLength];
+            start[gramLength] = next;
+            next += count;
+        }
+        if (spareCodes.length < codes.length) {
+            spareCodes = new long[codes.length];
+            spareSlots = new int[codes.length];
+        }
+        long[] newCodes = spareCodes;
+        int[] newSlots = spareSlots;
+        for (int e = 0; e < size; e++) {
+            int to = start[GramCodes.length(codes[e])]++;
+            newCodes[to] = codes[e];
+            newSlots[to] = slotOfEntry[e];
+        }
+        spareCodes = codes;
+        spareSlots = slotOfEntry;
+        codes = newCodes;
+        slotOfEntry = newSlots;
+    }
+
+    private void rehash() {
+        int[] oldCounts = countOfSlot;
+        int[] oldIds = idOfSlot;
+        allocateTable(keys.length * 2);
+        for (int e = 0; e < size; e++) {
+            int i = slot(codes[e]);
+            while (keys[i] != 0L) i = (i + 1) & mask;
+            keys[i] = codes[e];
+            countOfSlot[i] = oldCounts[slotOfEntry[e]];
+            if (oldIds != null) idOfSlot[i] = oldIds[slotOfEntry[e]];
+            slotOfEntry[e] = i;
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.ngram.GramCodes;
+
+/**
+ * Maps packed gram codes (see {@link GramCodes}) to gram ids 0-n.
+ *
+ * <p>Implementations are immutable once the {@link NgramFrequencyData} is created.</p>
+ */
+abstract class GramIndex {
+
+    /**
+     * @return the gram id, or -1 if unknown.
+     */
+    abstract int get(long gramCode);
+
+    /**
+     * @return How many grams are in the index.
+     */
+    abstract int size();
+
+    /**
+     * The reverse mapping, for writing the data. Creates a new array.
+     * @param numGrams the number of all grams in the NgramFrequencyData, also those not in this index.
+     * @return index = gram id, value = gram code, or {@link GramCodes#NONE} for grams not in this index.
+     */
+    abstract long[] getCodes(int numGrams);
+
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.ngram.GramCodes;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A double-array trie of all packed grams of the model, see {@link TrieGramExtractor}.
+ *
+ * <p>A node is a position in the array. The child of node n for char c is at {@code base(n) + code(c)}, if
+ * {@code check} there says n is its parent. The chars are numbered 1-n, the most frequent in the grams first,
+ * so that the children of a node lie close together. Base, check and gram id of a position are stored next to
+ * each other, so a step is usually one cache line, no hashing.</p>
+ *
+ * <p>The nodes of the prefixes of 2-grams and 3-grams are there, also if they are not grams of the model
+ * themselves. Immutable once created.</p>
+ */
+final class GramTrie {
+
+    static final int ROOT = 0;
+
+    private static final int FREE = -1;
+    /**
+     * The misses in the search of a base after which the positions before are given up.
+     */
+    private static final int MAX_MISSES = 256;
+
+    /**
+     * The ints per position: base, check (the parent node, FREE if unused), gram id (-1 if only a prefix).
+     */
+    private static final int STRIDE = 3;
+    private static final int BASE = 0;
+    private static final int CHECK = 1;
+    private static final int GRAM_ID = 2;
+
+    /**
+     * By char: the number 1-n, 0 if the char is in no gram.
+     */
+    private final char[] charCodes;
+    private int[] nodes;
+    /**
+     * The used positions, only while creating.
+     */
+    private BitSet used;
+
+    /**
+     * @param gramIndex with all grams that get an id
+     * @param numGrams the number of all grams, also those not in the index.
+     */
+    GramTrie(GramIndex gramIndex, int numGrams) {
+        long[] codes = gramIndex.getCodes(numGrams);
+
+        //number the chars, the most frequent first.
+        int[] frequency = new int[Character.MAX_VALUE + 1];
+        int maxChar = -1;
+        for (long code : codes) {
+            if (code == GramCodes.NONE) continue;
+            for (int i = 0; i < GramCodes.length(code); i++) {
+                char c = GramCodes.charAt(code, i);
+                frequency[c]++;
+                maxChar = Math.max(maxChar, c);
+            }
+        }
+        Integer[] chars = new Integer[maxChar + 1];
+        for (int c = 0; c <= maxChar; c++) chars[c] = c;
+        Arrays.sort(chars, (a, b) -> Integer.compare(frequency[b], frequency[a]));
+        this.charCodes = new char[maxChar + 1];
+        char[] charsByCode = new char[chars.length + 1];
+        int numChars = 0;
+        for (int c : chars) {
+            if (frequency[c] == 0) break;
+            charCodes[c] = (char) ++numChars;
+            charsByCode[numChars] = (char) c;
+        }
+
+        //the grams as sortable keys: 17 bits per char code, 0 after the end. So a gram sorts before its extensions.
+        long[] keys = new long[numGrams];
+        int n = 0;
+        for (long code : codes) {
+            if (code == GramCodes.NONE) continue;
+            keys[n++] = key(code);
+        }
+        Arrays.sort(keys, 0, n);
+        int[] ids = new int[n];
+        for (int k = 0; k < n; k++) {
+            ids[k] = gramIndex.get(code(keys[k], charsByCode));
+        }
+
+        nodes = new int[Math.max(n * 2, 1024) * STRIDE];
+        fill(0);
+        used = new BitSet();
+        used.set(ROOT);
+        nodes[ROOT * STRIDE + CHECK] = ROOT;
+        int size = build(keys, ids, n, numChars);
+        used = null;
+        nodes = Arrays.copyOf(nodes, size * STRIDE);
+    }
+
+    private long key(long code) {
+        long key = 0;
+        int length = GramCodes.length(code);
+        for (int i = 0; i < GramCodes.MAX_LENGTH; i++) {
+            key <<= 17;
+            if (i < length) key |= charCodes[GramCodes.charAt(code, i)];
+        }
+        return key;
+    }
+
+    private static long code(long key, char[] charsByCode) {
+        int length = 0;
+        long chars = 0;
+        for (int depth = 0; depth < GramCodes.MAX_LENGTH; depth++) {
+            int c = charCodeAt(key, depth);
+            if (c == 0) break;
+            chars = (chars << 16) | charsByCode[c];
+            length++;
+        }
+        return GramCodes.packLast(chars, length);
+    }
+
+    private static int charCodeAt(long key, int depth) {
+        return (int) (key >>> (17 * (GramCodes.MAX_LENGTH - 1 - depth))) & 0x1FFFF;
+    }
+
+    /**
+     * Breadth first: each node gets the lowest base where all its children fit into free positions.
+     * @return the number of positions used.
+     */
+    private int build(long[] keys, int[] ids, int n, int numChars) {
+        //node, depth, from, to: the keys from-to (exclusive) start with the node's prefix.
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        queue.add(new int[]{ROOT, 0, 0, n});
+        int size = 1;
+        int firstFree = 1;
+        int[] children = new int[numChars + 1];
+        int[] childFrom = new int[numChars + 2];
+        while (!queue.isEmpty()) {
+            int[] entry = queue.poll();
+            int node = entry[0], depth = entry[1], from = entry[2], to = entry[3];
+            //the gram of the node itself sorts first.
+            if (depth > 0 && (depth == GramCodes.MAX_LENGTH || charCodeAt(keys[from], depth) == 0)) {
+                nodes[node * STRIDE + GRAM_ID] = ids[from];
+                from++;
+            }
+            if (from == to) continue;
+
+            int numChildren = 0;
+            for (int k = from; k < to; k++) {
+                int c = charCodeAt(keys[k], depth);
+                if (numChildren == 0 || children[numChildren - 1] != c) {
+                    childFrom[numChildren] = k;
+                    children[numChildren++] = c;
+                }
+            }
+            childFrom[numChildren] = to;
+
+            //only try bases where the first child lands on a free position.
+            int b;
+            int free = used.nextClearBit(Math.max(children[0], firstFree));
+            int misses = 0;
+            while (true) {
+                b = free - children[0];
+                boolean fits = true;
+                for (int i = 1; i < numChildren; i++) {
+                    if (used.get(b + children[i])) {
+                        fits = false;
+                        break;
+                    }
+                }
+                if (fits) break;
+                misses++;
+                free = used.nextClearBit(free + 1);
+            }
+            if (misses >= MAX_MISSES) {
+                //the free positions up to here are few holes between used ones, the next nodes don't search there.
+                //costs a little density, but keeps the build fast.
+                firstFree = free;
+            }
+            firstFree = used.nextClearBit(firstFree);
+            ensureCapacity(b + children[numChildren - 1] + 1);
+            nodes[node * STRIDE + BASE] = b;
+            for (int i = 0; i < numChildren; i++) {
+                int child = b + children[i];
+                used.set(child);
+                nodes[child * STRIDE + CHECK] = node;
+                size = Math.max(size, child + 1);
+                queue.add(new int[]{child, depth + 1, childFrom[i], childFrom[i + 1]});
+            }
+        }
+        return size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        int old = nodes.length / STRIDE;
+        if (capacity <= old) return;
+        nodes = Arrays.copyOf(nodes, Math.max(capacity, old * 2) * STRIDE);
+        fill(old);
+    }
+
+    /**
+     * Marks the positions from the given one to the end as free.
+     */
+    private void fill(int from) {
+        for (int i = from * STRIDE; i < nodes.length; i += STRIDE) {
+            nodes[i + CHECK] = FREE;
+            nodes[i + GRAM_ID] = -1;
+        }
+    }
+
+    /**
+     * @param node a node, not -1.
+     * @return the child node for the char, -1 if none.
+     */
+    int child(int node, char c) {
+        if (c >= charCodes.length) return -1;
+        int code = charCodes[c];
+        if (code == 0) return -1;
+        int t = nodes[node * STRIDE + BASE] + code;
+        int i = t * STRIDE;
+        return (i < nodes.length && nodes[i + CHECK] == node) ? t : -1;
+    }
+
+    /**
+     * @return the gram id of the node, -1 if it is only a prefix.
+     */
+    int gramId(int node) {
+        return nodes[node * STRIDE + GRAM_ID];
+    }
+
+    /**
+     * A lookup by walking the chars, the same as the {@link GramIndex} gives.
+     * @return the gram id, -1 if unknown.
+     */
+    int get(long gramCode) {
+        int node = ROOT;
+        for (int i = 0; i < GramCodes.length(gramCode); i++) {
+            node = child(node, GramCodes.charAt(gramCode, i));
+            if (node == -1) return -1;
+        }
+        return nodes[node * STRIDE + GRAM_ID];
+    }
+
+    /**
+     * @return the number of positions, each takes {@value #STRIDE} ints.
+     */
+    int size() {
+        return nodes.length / STRIDE;
+    }
+
+}
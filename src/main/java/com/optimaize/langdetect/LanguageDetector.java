@@ -63,4 +63,87 @@ public interface LanguageDetector {
      */
     List<DetectedLanguage> getProbabilities(CharSequence text);
 
+    /**
+     * Same as {@link #detect(CharSequence)}, with the settings of the options instead of the detector's own.
+     *
+     * <p>The default implementation applies the options to the result of {@link #getProbabilities(CharSequence)},
+     * see {@link DetectionOptions}. It calls {@link #detect(CharSequence)} if the options change nothing for it.</p>
+     */
+    default Optional<LdLocale> detect(CharSequence text, DetectionOptions options) {
+        if (options.isDefaultForDetect()) return detect(text);
+        return options.best(getProbabilities(text));
+    }
+
+    /**
+     * Same as {@link #getProbabilities(CharSequence)}, with the settings of the options instead of the detector's own.
+     *
+     * <p>The default implementation applies the options to the result without options, see
+     * {@link DetectionOptions}.</p>
+     */
+    default List<DetectedLanguage> getProbabilities(CharSequence text, DetectionOptions options) {
+        return options.apply(getProbabilities(text));
+    }
+
+    /**
+     * Creates a session for repeated calls from one thread, see {@link DetectionSession}.
+     *
+     * <p>The default implementation just calls this detector, it does not save anything.</p>
+     */
+    default DetectionSession newSession() {
+        LanguageDetector detector = this;
+        return new DetectionSession() {
+            @Override
+            public Optional<LdLocale> detect(CharSequence text) {
+                return detector.detect(text);
+            }
+            @Override
+            public List<DetectedLanguage> getProbabilities(CharSequence text) {
+                return detector.getProbabilities(text);
+            }
+            @Override
+            public Optional<LdLocale> detect(CharSequence text, DetectionOptions options) {
+                return detector.detect(text, options);
+            }
+            @Override
+            public List<DetectedLanguage> getProbabilities(CharSequence text, DetectionOptions options) {
+                return detector.getProbabilities(text, options);
+            }
+        };
+    }
+
+    /**
+     * Creates a detector for text that comes in chunks, see {@link StreamingDetector}.
+     *
+     * <p>The default implementation collects the text and detects it all again when asked, for
+     * {@link StreamingDetector#isDone()} only each time the text doubled.</p>
+     *
+     * @param stopConfidence 0-1, once the best language has this probability no more text is needed.
+     */
+    default StreamingDetector newStreamingDetector(double stopConfidence) {
+        if (stopConfidence < 0d || stopConfidence > 1d)
+            throw new IllegalArgumentException("stopConfidence must be between 0 and 1, but was: " + stopConfidence);
+        return new BufferingStreamingDetector(this, stopConfidence);
+    }
+
+    /**
+     * Splits a text written in multiple languages into spans of one language each.
+     *
+     * <p>The default implementation does not split, it returns the whole text as one span with the best
+     * language of {@link #getProbabilities}.</p>
+     *
+     * @param text You probably want a {@link com.optimaize.langdetect.text.TextObject}. The span positions refer
+     *             to this char sequence.
+     * @param windowLength 1-n, the number of chars around each position that decide its language. Spans
+     *                     shorter than half of that are not reported, they are merged into a neighbor.
+     *                     Something around a sentence, like 50-100, works well.
+     * @return The spans in order, covering the whole text without gaps. Empty if there is no usable text.
+     */
+    default List<LanguageSpan> segment(CharSequence text, int windowLength) {
+        if (windowLength < 1) throw new IllegalArgumentException("windowLength must be at least 1, but was: " + windowLength);
+        List<DetectedLanguage> probabilities = getProbabilities(text);
+        if (probabilities.isEmpty()) return List.of();
+        DetectedLanguage best = probabilities.get(0);
+        return List.of(new LanguageSpan(0, text.length(), best.getLocale(), best.getProbability()));
+    }
+
 }
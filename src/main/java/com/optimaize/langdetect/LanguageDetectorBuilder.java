@@ -38,6 +38,7 @@ import java.util.Set;
 public class LanguageDetectorBuilder {
 
     private static final double ALPHA_DEFAULT = 0.5;
+    static final double MINIMAL_CONFIDENCE_DEFAULT = 0.9999d;
 
     @NotNull
     private final NgramExtractor ngramExtractor;
@@ -48,12 +49,28 @@ public class LanguageDetectorBuilder {
     private double prefixFactor = 1.0d;
     private double suffixFactor = 1.0d;
 
+    @NotNull
+    private ProbabilityStorage probabilityStorage = ProbabilityStorage.DENSE;
+
+    @NotNull
+    private LongTextAlgorithm longTextAlgorithm = LongTextAlgorithm.RANDOM_TRIALS;
+    private int longTextGramLimit = 0;
+    private double trialStopMargin = 0d;
+    private boolean skipUnknownGrams = false;
+    private boolean scriptRouting = false;
+    private int cascadeShortlist = 0;
+    private int tieredGramIndex = 0;
+    private boolean trieExtraction = false;
+
     private double probabilityThreshold = 0.1;
-    private double minimalConfidence = 0.9999d;
+    private double minimalConfidence = MINIMAL_CONFIDENCE_DEFAULT;
 
     @Nullable
     private Map<LdLocale, Double> langWeightingMap;
 
+    @Nullable
+    private NgramFrequencyData ngramFrequencyData;
+
     @NotNull
     private final Set<LanguageProfile> languageProfiles = new HashSet<>();
     @NotNull
@@ -91,6 +108,140 @@ public class LanguageDetectorBuilder {
         return this;
     }
 
+    /**
+     * How text longer than the {@link #shortTextAlgorithm} limit is scored, see {@link LongTextAlgorithm}.
+     *
+     * Defaults to {@link LongTextAlgorithm#RANDOM_TRIALS}, which is the old behavior.
+     */
+    public LanguageDetectorBuilder longTextAlgorithm(@NotNull LongTextAlgorithm longTextAlgorithm) {
+        this.longTextAlgorithm = longTextAlgorithm;
+        return this;
+    }
+
+    /**
+     * For {@link LongTextAlgorithm#LOG_SPACE} only: scores at most this many distinct n-grams of a text,
+     * the most frequent ones. This caps the cost for very long text.
+     *
+     * Defaults to 0, which means use all.
+     */
+    public LanguageDetectorBuilder longTextGramLimit(int longTextGramLimit) {
+        this.longTextGramLimit = longTextGramLimit;
+        return this;
+    }
+
+    /**
+     * For the random trials only ({@link LongTextAlgorithm#RANDOM_TRIALS}, {@link LongTextAlgorithm#SAMPLED_TRIALS}
+     * and {@link LongTextAlgorithm#ALIAS_TRIALS}): stops running more trials as soon as the average of
+     * the trials so far is stable. That is when the top language is the same as after the previous trial,
+     * and it leads the second by at least this margin. At least 2 trials are always run.
+     *
+     * For clean text in one language this usually ends after 2 or 3 of the 7 trials. The probabilities are
+     * then the average of the trials that were run.
+     *
+     * Defaults to 0, which means always run all trials. That's the old behavior.
+     * @param trialStopMargin 0-1, where a good value is something like 0.5
+     */
+    public LanguageDetectorBuilder trialStopMargin(double trialStopMargin) {
+        this.trialStopMargin = trialStopMargin;
+        return this;
+    }
+
+    /**
+     * For the random trials only: looks up all grams of the text once before the trials, and leaves out the
+     * ones that no profile knows. So every draw updates the probabilities, and none is spent on a gram that
+     * changes nothing. The trials then work with the looked up ids, for
+     * {@link LongTextAlgorithm#SAMPLED_TRIALS} an unknown gram is drawn again instead.
+     *
+     * The known grams are drawn with the same chances as before, but not the same ones for the same seed.
+     * If no gram is known then all are used, as without this.
+     *
+     * Defaults to false, which means draw from all grams. That's the old behavior.
+     */
+    public LanguageDetectorBuilder skipUnknownGrams(boolean skipUnknownGrams) {
+        this.skipUnknownGrams = skipUnknownGrams;
+        return this;
+    }
+
+    /**
+     * Looks at the writing scripts of the text first, and scores only the languages that are written in them.
+     * When that leaves one language (Thai, Greek, Hangul, ...) the n-grams are not scored at all, and it gets
+     * the probability 1. The others get 0, so the probability vectors are smaller also for Latin text.
+     *
+     * Which language uses which script is taken from the 1-grams of the profiles. If no loaded language uses
+     * the scripts of a text then all languages are scored.
+     *
+     * Defaults to false, which means score all languages. That's the old behavior.
+     */
+    public LanguageDetectorBuilder scriptRouting(boolean scriptRouting) {
+        this.scriptRouting = scriptRouting;
+        return this;
+    }
+
+    /**
+     * Experimental, it makes the detection no faster yet.
+     *
+     * Detects in two stages: first the 1-grams alone pick this many most likely languages, then all n-grams
+     * are scored against just those. With few languages left the second stage updates only those per gram.
+     *
+     * Combines with {@link #scriptRouting}, the shortlist is then taken from the languages of the script.
+     * The 1-grams can misjudge closely related languages, so keep this well above 1. Something like 5-10.
+     * On 74 short sentences and pieces of the bundled test texts the best language was the same as with one
+     * stage for all of them with a shortlist of 5 and 10, with 3 it differed for 2.
+     *
+     * The time per text was 0.90-1.12 of the one-stage time for shortlists of 3-10, within the noise. The first
+     * stage costs a pass over the 1-grams, and the random trials converge after a few hundred grams anyway, so
+     * the gram lookups cost more than updating all languages.
+     *
+     * Defaults to 0, which means score all languages in one stage. That's the old behavior.
+     */
+    public LanguageDetectorBuilder cascadeShortlist(int cascadeShortlist) {
+        if (cascadeShortlist < 0) throw new IllegalArgumentException("cascadeShortlist must be 0 or larger, but was: " + cascadeShortlist);
+        this.cascadeShortlist = cascadeShortlist;
+        return this;
+    }
+
+    /**
+     * Looks up the grams in plain arrays where it can, instead of in the hash table (or the binary search of
+     * a {@link NgramFrequencyDataReader compiled model}): all 1-grams by their char, and the 2-grams of a
+     * "hot alphabet" in a dense table. The hot alphabet is the space, the ASCII letters and this many of the
+     * most frequent other chars of the loaded languages. For Latin text that's nearly all 1-grams and 2-grams.
+     *
+     * The results don't change. It costs memory: the 2-gram table has the square of the alphabet size in ints,
+     * for 64 chars about 55 KB, and the 1-gram table up to 256 KB with CJK profiles.
+     *
+     * This pays off for compiled models, where the lookup otherwise is a binary search. The hash table of the
+     * profiles loaded to the heap is about as fast already, a lookup there usually is one array read too.
+     *
+     * Defaults to 0, which means off.
+     * @param frequentChars 0-1000, a good value is something like 64
+     */
+    public LanguageDetectorBuilder tieredGramIndex(int frequentChars) {
+        if (frequentChars < 0 || frequentChars > TieredGramIndex.MAX_FREQUENT_CHARS) {
+            throw new IllegalArgumentException("tieredGramIndex must be 0-" + TieredGramIndex.MAX_FREQUENT_CHARS + ", but was: " + frequentChars);
+        }
+        this.tieredGramIndex = frequentChars;
+        return this;
+    }
+
+    /**
+     * Looks up the grams while extracting them, in a double-array trie of all grams of the loaded languages.
+     * The 1-, 2- and 3-grams that end at a position share their chars, so each gram is one step in the trie
+     * from the gram one char shorter, instead of a hash lookup of its own.
+     *
+     * The results don't change. The trie is built when the detector is created (a few 100ms for all built-in
+     * languages), it takes about as much memory as the hash index. It is used where all grams of the text get
+     * looked up: for short text, and for long text with {@link #skipUnknownGrams}. Only for n-gram extractors with
+     * gram lengths 1-3, as all the built-in ones, it is ignored for others.
+     *
+     * On the JVM the hash index is already about as fast per gram, so measure before turning this on.
+     *
+     * Defaults to false, which means the grams are looked up in the hash index.
+     */
+    public LanguageDetectorBuilder trieExtraction(boolean trieExtraction) {
+        this.trieExtraction = trieExtraction;
+        return this;
+    }
+
     /**
      * Sets prefixFactor() and suffixFactor() both to the given value.
      * @see #prefixFactor(double)
@@ -124,6 +275,17 @@ public class LanguageDetectorBuilder {
         return this;
     }
 
+    /**
+     * How the n-gram probabilities are kept in memory, see {@link ProbabilityStorage}.
+     *
+     * Defaults to {@link ProbabilityStorage#DENSE}, which is the old behavior.
+     * {@link ProbabilityStorage#SPARSE} needs a fraction of the memory and scores faster.
+     */
+    public LanguageDetectorBuilder probabilityStorage(@NotNull ProbabilityStorage probabilityStorage) {
+        this.probabilityStorage = probabilityStorage;
+        return this;
+    }
+
     /**
      * {@link LanguageDetector#getProbabilities} does not return languages with less probability than this.
      * The default currently is 0.1 (the old hardcoded value), but don't rely on it, if you need to be sure
@@ -158,6 +320,9 @@ public class LanguageDetectorBuilder {
      * @throws IllegalStateException if a profile for the same language was added already (must be a userland bug).
      */
     public LanguageDetectorBuilder withProfile(LanguageProfile languageProfile) throws IllegalStateException {
+        if (ngramFrequencyData != null) {
+            throw new IllegalStateException("Can't add profiles, the NgramFrequencyData was set already!");
+        }
         if (langsAdded.contains(languageProfile.getLocale())) {
             throw new IllegalStateException("A language profile for language "+languageProfile.getLocale()+" was added already!");
         }
@@ -182,17 +347,45 @@ public class LanguageDetectorBuilder {
 
 
     /**
-     * @throws IllegalStateException if no LanguageProfile was {@link #withProfile added}.
+     * Uses ready-made data instead of building it from language profiles, for example a memory-mapped
+     * compiled model from the {@link NgramFrequencyDataReader}.
+     *
+     * <p>The data must have been made with the same n-gram lengths as the NgramExtractor uses.
+     * The {@link #probabilityStorage} setting does not apply then.</p>
+     *
+     * @throws IllegalStateException if profiles were added already.
+     */
+    public LanguageDetectorBuilder withNgramFrequencyData(@NotNull NgramFrequencyData ngramFrequencyData) throws IllegalStateException {
+        if (!languageProfiles.isEmpty()) {
+            throw new IllegalStateException("Can't set the NgramFrequencyData, profiles were added already!");
+        }
+        this.ngramFrequencyData = ngramFrequencyData;
+        return this;
+    }
+
+
+    /**
+     * @throws IllegalStateException if no LanguageProfile was {@link #withProfile added} and no
+     *         {@link #withNgramFrequencyData NgramFrequencyData} was set.
      */
     public LanguageDetector build() throws IllegalStateException {
-        if (languageProfiles.isEmpty()) throw new IllegalStateException();
+        if (languageProfiles.isEmpty() && ngramFrequencyData == null) throw new IllegalStateException();
+        NgramFrequencyData data = ngramFrequencyData != null
+                ? ngramFrequencyData
+                : NgramFrequencyData.create(languageProfiles, ngramExtractor.getGramLengths(), probabilityStorage);
+        if (tieredGramIndex > 0) {
+            data = data.withTieredGramIndex(tieredGramIndex);
+        }
         return new LanguageDetectorImpl(
-                NgramFrequencyData.create(languageProfiles, ngramExtractor.getGramLengths()),
+                data,
                 alpha, seed, shortTextAlgorithm,
                 prefixFactor, suffixFactor,
                 probabilityThreshold, minimalConfidence,
                 langWeightingMap,
-                ngramExtractor
+                ngramExtractor,
+                longTextAlgorithm, longTextGramLimit,
+                trialStopMargin, skipUnknownGrams, scriptRouting, cascadeShortlist,
+                trieExtraction
         );
     }
 
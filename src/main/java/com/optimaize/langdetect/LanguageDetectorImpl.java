@@ -16,19 +16,26 @@
 
 package com.optimaize.langdetect;
 
+import com.optimaize.langdetect.cybozu.util.CharNormalizer;
 import com.optimaize.langdetect.cybozu.util.Util;
 import com.optimaize.langdetect.i18n.LdLocale;
+import com.optimaize.langdetect.ngram.GramCodes;
+import com.optimaize.langdetect.ngram.GramView;
 import com.optimaize.langdetect.ngram.NgramExtractor;
+import com.optimaize.langdetect.ngram.NgramFilter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 
 /**
  * <p>This class is immutable and thus thread-safe.</p>
@@ -64,6 +71,12 @@ public final class LanguageDetectorImpl implements LanguageDetector {
      */
     private static final int N_TRIAL = 7;
 
+    /**
+     * For {@link LongTextAlgorithm#SAMPLED_TRIALS}: how often a gram rejected by the filter is drawn again.
+     * The standard filter accepts all 2-grams, so this is only reached with a filter that rejects nearly all.
+     */
+    private static final int MAX_REDRAWS = 32;
+
     /**
      * This is used when no custom seed was passed in.
      * By using the same seed for different calls, the results are consistent also.
@@ -74,6 +87,18 @@ public final class LanguageDetectorImpl implements LanguageDetector {
      */
     private static final long DEFAULT_SEED = 41L;
 
+    /**
+     * When at most 1/x of the languages are still candidates then only those are updated per gram,
+     * see {@link ProbabilityTable#update(int, double[], double, int, int[])}. For more the full row update is
+     * cheaper, it is a vectorized multiply.
+     */
+    private static final int RESTRICTED_UPDATE_DIVISOR = 4;
+
+    /**
+     * The 1-gram counter of the cascade has 2^x slots.
+     */
+    private static final int UNIGRAM_COUNTER_BITS = 8;
+
     private static final Comparator<DetectedLanguage> PROBABILITY_SORTING_COMPARATOR = new Comparator<DetectedLanguage>() {
         public int compare(DetectedLanguage a, DetectedLanguage b) {
             return Double.compare(b.getProbability(), a.getProbability());
@@ -82,6 +107,11 @@ public final class LanguageDetectorImpl implements LanguageDetector {
 
     @NotNull
     private final NgramFrequencyData ngramFrequencyData;
+    /**
+     * The probabilities of the ngramFrequencyData, see {@link NgramFrequencyData#getTable()}.
+     */
+    @NotNull
+    private final ProbabilityTable table;
 
     /**
      * User-defined language priorities, in the same order as {@code langlist}.
@@ -97,9 +127,54 @@ public final class LanguageDetectorImpl implements LanguageDetector {
 
     private final double probabilityThreshold;
     private final double minimalConfidence;
+    /**
+     * The settings above for the calls without {@link DetectionOptions}.
+     */
+    @NotNull
+    private final Settings defaults;
+
+    @NotNull
+    private final LongTextAlgorithm longTextAlgorithm;
+    /**
+     * For {@link LongTextAlgorithm#LOG_SPACE}: the maximal number of distinct grams to score, 0 for all.
+     */
+    private final int longTextGramLimit;
+    /**
+     * For the log-space scoring, for the grams that get the plain weight (not prefix/suffix factor).
+     * Made in the constructor for {@link LongTextAlgorithm#LOG_SPACE}, otherwise on first use by a
+     * {@link StreamingDetector} or {@link #segment}. Always null if alpha is 0 or the table is mapped.
+     */
+    @Nullable
+    private volatile PrecomputedLogTable logTable;
+    /**
+     * For the random trials: see {@link LanguageDetectorBuilder#trialStopMargin}, 0 to always
+     * run all {@link #N_TRIAL} trials.
+     */
+    private final double trialStopMargin;
+    /**
+     * See {@link LanguageDetectorBuilder#skipUnknownGrams}.
+     */
+    private final boolean skipUnknownGrams;
+    /**
+     * See {@link LanguageDetectorBuilder#scriptRouting}, null if off.
+     */
+    @Nullable
+    private final ScriptRouter scriptRouter;
+    /**
+     * See {@link LanguageDetectorBuilder#cascadeShortlist}, 0 if off.
+     */
+    private final int cascadeShortlist;
+    /**
+     * See {@link LanguageDetectorBuilder#trieExtraction}, null if off.
+     */
+    @Nullable
+    private final TrieGramExtractor trieExtractor;
 
     private final NgramExtractor ngramExtractor;
 
+    @NotNull
+    private final ScoringKernel kernel = ScoringKernel.get();
+
 
     /**
      * Use the {@link LanguageDetectorBuilder}.
@@ -110,7 +185,14 @@ public final class LanguageDetectorImpl implements LanguageDetector {
                          double probabilityThreshold,
                          double minimalConfidence,
                          @Nullable Map<LdLocale, Double> langWeightingMap,
-                         @NotNull NgramExtractor ngramExtractor) {
+                         @NotNull NgramExtractor ngramExtractor,
+                         @NotNull LongTextAlgorithm longTextAlgorithm,
+                         int longTextGramLimit,
+                         double trialStopMargin,
+                         boolean skipUnknownGrams,
+                         boolean scriptRouting,
+                         int cascadeShortlist,
+                         boolean trieExtraction) {
         if (alpha < 0d || alpha > 1d)
             throw new IllegalArgumentException("alpha must be between 0 and 1, but was: " + alpha);
         if (prefixFactor < 0d || prefixFactor > 10d)
@@ -121,9 +203,16 @@ public final class LanguageDetectorImpl implements LanguageDetector {
             throw new IllegalArgumentException("probabilityThreshold must be between 0 and 1, but was: " + probabilityThreshold);
         if (minimalConfidence < 0d || minimalConfidence > 1d)
             throw new IllegalArgumentException("minimalConfidence must be between 0 and 1, but was: " + minimalConfidence);
+        if (longTextGramLimit < 0)
+            throw new IllegalArgumentException("longTextGramLimit must be 0 or larger, but was: " + longTextGramLimit);
+        if (trialStopMargin < 0d || trialStopMargin > 1d)
+            throw new IllegalArgumentException("trialStopMargin must be between 0 and 1, but was: " + trialStopMargin);
+        if (cascadeShortlist < 0)
+            throw new IllegalArgumentException("cascadeShortlist must be 0 or larger, but was: " + cascadeShortlist);
         if (langWeightingMap != null && langWeightingMap.isEmpty()) langWeightingMap = null;
 
         this.ngramFrequencyData = ngramFrequencyData;
+        this.table = ngramFrequencyData.getTable();
         this.alpha = alpha;
         this.seed = seed;
         this.shortTextAlgorithm = shortTextAlgorithm;
@@ -133,63 +222,322 @@ public final class LanguageDetectorImpl implements LanguageDetector {
         this.minimalConfidence = minimalConfidence;
         this.priorMap = (langWeightingMap == null) ? null : Util.makeInternalPrioMap(langWeightingMap, ngramFrequencyData.getLanguageList());
         this.ngramExtractor = ngramExtractor;
+        this.longTextAlgorithm = longTextAlgorithm;
+        this.longTextGramLimit = longTextGramLimit;
+        if (longTextAlgorithm == LongTextAlgorithm.LOG_SPACE) {
+            logTable();
+        }
+        this.trialStopMargin = trialStopMargin;
+        this.skipUnknownGrams = skipUnknownGrams;
+        this.scriptRouter = scriptRouting ? new ScriptRouter(ngramFrequencyData) : null;
+        this.cascadeShortlist = cascadeShortlist;
+        this.trieExtractor = (trieExtraction && ngramExtractor.isPackable())
+                ? new TrieGramExtractor(new GramTrie(ngramFrequencyData.getGramIndex(), ngramFrequencyData.getNumGrams()), ngramExtractor)
+                : null;
+        this.defaults = new Settings(priorMap, null, probabilityThreshold, minimalConfidence, 0);
     }
 
 
     @Override
     public Optional<LdLocale> detect(CharSequence text) {
-        List<DetectedLanguage> probabilities = getProbabilities(text);
-        if (probabilities.isEmpty()) {
+        return detect(text, new Scratch(false), defaults);
+    }
+
+    @Override
+    public List<DetectedLanguage> getProbabilities(CharSequence text) {
+        return getProbabilities(text, new Scratch(false), defaults);
+    }
+
+    /**
+     * Scores with the shared model, only the allowed languages. The options are resolved to language positions
+     * on each call, that's a few small arrays.
+     *
+     * @throws IllegalArgumentException if an allowed language is not loaded, or if no loaded language has a
+     *         priority larger than 0.
+     */
+    @Override
+    public Optional<LdLocale> detect(CharSequence text, DetectionOptions options) {
+        return detect(text, new Scratch(false), settings(options));
+    }
+
+    /**
+     * See {@link #detect(CharSequence, DetectionOptions)}.
+     */
+    @Override
+    public List<DetectedLanguage> getProbabilities(CharSequence text, DetectionOptions options) {
+        return getProbabilities(text, new Scratch(false), settings(options));
+    }
+
+    /**
+     * The returned session reuses its working memory, see {@link DetectionSession}.
+     */
+    @Override
+    public DetectionSession newSession() {
+        return new Session();
+    }
+
+    /**
+     * The returned detector scores each chunk as it comes in, with the {@link LongTextAlgorithm#LOG_SPACE}
+     * algorithm (no matter what was configured, also for short text). It keeps just the last few chars.
+     *
+     * <p>The stop confidence is compared with tempered probabilities, because the log-space ones are too
+     * confident for short text; the results that are read are not tempered.</p>
+     */
+    @Override
+    public StreamingDetector newStreamingDetector(double stopConfidence) {
+        if (stopConfidence < 0d || stopConfidence > 1d)
+            throw new IllegalArgumentException("stopConfidence must be between 0 and 1, but was: " + stopConfidence);
+        return new Stream(stopConfidence);
+    }
+
+
+    private Optional<LdLocale> detect(CharSequence text, Scratch scratch, Settings settings) {
+        double[] langprob = detectBlock(text, scratch, settings);
+        if (langprob == null) {
             return Optional.empty();
-        } else {
-            DetectedLanguage best = probabilities.get(0);
-            if (best.getProbability() >= minimalConfidence) {
-                return Optional.of(best.getLocale());
-            } else {
-                return Optional.empty();
+        }
+        return bestLocale(langprob, settings);
+    }
+
+    /**
+     * @return the best language if it is confident enough.
+     */
+    private Optional<LdLocale> bestLocale(double[] langprob, Settings settings) {
+        //same as the first of sortProbability(), without creating the list.
+        int best = -1;
+        for (int j = 0; j < langprob.length; ++j) {
+            double p = langprob[j];
+            if (p >= settings.probabilityThreshold && (best == -1 || p > langprob[best]) && settings.isAllowed(j)) {
+                best = j;
             }
         }
+        if (best != -1 && langprob[best] >= settings.minimalConfidence) {
+            return Optional.of(ngramFrequencyData.getLanguage(best));
+        } else {
+            return Optional.empty();
+        }
     }
 
-    @Override
-    public List<DetectedLanguage> getProbabilities(CharSequence text) {
-        double[] langprob = detectBlock(text);
+    private List<DetectedLanguage> getProbabilities(CharSequence text, Scratch scratch, Settings settings) {
+        double[] langprob = detectBlock(text, scratch, settings);
         if (langprob == null) {
             return Collections.emptyList();
         } else {
-            return sortProbability(langprob);
+            return sortProbability(langprob, settings);
+        }
+    }
+
+    /**
+     * Resolves the options against the loaded languages, what is not set comes from the builder.
+     */
+    private Settings settings(@NotNull DetectionOptions options) {
+        if (options == DetectionOptions.defaults()) return defaults;
+        List<LdLocale> languages = ngramFrequencyData.getLanguageList();
+        double[] priors = this.priorMap;
+        Map<LdLocale, Double> priorities = options.getLanguagePriorities();
+        if (priorities != null) {
+            double sum = 0;
+            for (LdLocale language : languages) {
+                sum += priorities.getOrDefault(language, 0d);
+            }
+            if (priorities.isEmpty()) {
+                priors = null;
+            } else if (sum > 0d) {
+                priors = Util.makeInternalPrioMap(priorities, languages);
+            } else {
+                throw new IllegalArgumentException("No loaded language has a priority larger than 0: " + priorities);
+            }
+        }
+        int[] allowed = null;
+        Set<LdLocale> allowedLanguages = options.getAllowedLanguages();
+        if (allowedLanguages != null) {
+            allowed = new int[allowedLanguages.size()];
+            int n = 0;
+            for (LdLocale language : allowedLanguages) {
+                int pos = languages.indexOf(language);
+                if (pos == -1) throw new IllegalArgumentException("Language is not loaded: " + language);
+                allowed[n++] = pos;
+            }
+            Arrays.sort(allowed);
+            //all allowed is the same as no restriction, and faster.
+            if (allowed.length == languages.size()) allowed = null;
         }
+        return new Settings(priors, allowed,
+                options.getProbabilityThreshold() == null ? probabilityThreshold : options.getProbabilityThreshold(),
+                options.getMinimalConfidence() == null ? minimalConfidence : options.getMinimalConfidence(),
+                options.getMaxResults());
     }
 
 
     /**
      * @return null if there are no "features" in the text (just noise).
+     *         The array belongs to the scratch, it is only valid until its next use.
      */
     @Nullable
-    private double[] detectBlock(CharSequence text) {
+    private double[] detectBlock(CharSequence text, Scratch scratch, Settings settings) {
+        int[] candidates = (scriptRouter == null) ? null : scriptRouter.candidates(text);
+        if (candidates != null && candidates.length == 1 && settings.isAllowed(candidates[0])) {
+            //the script tells the language, the grams could not change that.
+            return single(candidates[0], scratch);
+        }
+        candidates = settings.restrict(candidates);
+        if (candidates != null && candidates.length == 0) {
+            //the script allows none of the allowed languages.
+            return null;
+        }
+        double[] priorMap = settings.priorMap;
         if (text.length() <= shortTextAlgorithm) {
-            Map<String, Integer> ngrams = ngramExtractor.extractCountedGrams(text);
-            if (ngrams.isEmpty()) return null;
-            return detectBlockShortText(ngrams);
+            Grams ngrams = scratch.extractCountedGrams(text);
+            if (ngrams.size() == 0) return null;
+            if (cascadeShortlist > 0) {
+                candidates = shortlist(ngrams, candidates, priorMap, scratch);
+                if (candidates != null && candidates.length == 1) return single(candidates[0], scratch);
+            }
+            return detectBlockShortText(ngrams, candidates, priorMap, scratch);
+        } else if (longTextAlgorithm == LongTextAlgorithm.LOG_SPACE) {
+            Grams ngrams = scratch.extractCountedGrams(text);
+            if (ngrams.size() == 0) return null;
+            if (cascadeShortlist > 0) {
+                candidates = shortlist(ngrams, candidates, priorMap, scratch);
+                if (candidates != null && candidates.length == 1) return single(candidates[0], scratch);
+            }
+            return detectBlockLogSpace(ngrams, candidates, priorMap, scratch);
         } else {
-            List<String> strings = ngramExtractor.extractGrams(text);
-            if (strings.isEmpty()) return null;
-            return detectBlockLongText(strings);
+            Grams grams = trialGrams(text, scratch);
+            if (grams.size() == 0) return null;
+            if (cascadeShortlist > 0) {
+                candidates = shortlist(grams, candidates, priorMap, scratch);
+                if (candidates != null && candidates.length == 1) return single(candidates[0], scratch);
+            }
+            return detectBlockLongText(grams, candidates, priorMap, scratch);
         }
     }
 
     /**
-     *
+     * The grams for the random trials, in the form of the {@link #longTextAlgorithm}.
+     */
+    private Grams trialGrams(CharSequence text, Scratch scratch) {
+        switch (longTextAlgorithm) {
+            case SAMPLED_TRIALS:
+                if (!ngramExtractor.isPackable()) break;
+                return scratch.viewGrams(text);
+            case ALIAS_TRIALS:
+                return scratch.aliasGrams(text);
+            default:
+                break;
+        }
+        Grams grams = scratch.extractGrams(text);
+        return skipUnknownGrams ? scratch.resolve(grams) : grams;
+    }
+
+    /**
+     * @return the probability 1 for that language, 0 for all others.
+     */
+    private double[] single(int languagePos, Scratch scratch) {
+        double[] prob = scratch.prob();
+        Arrays.fill(prob, 0d);
+        prob[languagePos] = 1d;
+        return prob;
+    }
+
+    /**
+     * The first stage of the cascade, see {@link LanguageDetectorBuilder#cascadeShortlist}: scores the 1-grams
+     * only, in log space.
+     * @param candidates null for all languages
+     * @param priorMap null for none, see {@link #initProbability}
+     * @return the {@link #cascadeShortlist} best of the candidates in ascending order, or the given candidates
+     *         if they are not more, or if no 1-gram is known.
+     */
+    @Nullable
+    private int[] shortlist(Grams ngrams, @Nullable int[] candidates, @Nullable double[] priorMap, Scratch scratch) {
+        double[] score = restrict(initLogProbability(scratch.score(), priorMap), candidates, Double.NEGATIVE_INFINITY);
+        //count first: the rows of the 1-grams are long, nearly all languages know the common letters.
+        //open addressing on gram ids, when half full the counts are added early.
+        int[] ids = scratch.unigramIds();
+        int[] counts = scratch.unigramCounts();
+        PrecomputedLogTable logTable = logTable();
+        int size = 0;
+        boolean anyKnown = false;
+        for (int index = 0; index < ngrams.size(); index++) {
+            if (ngrams.length(index) != 1) continue;
+            int gramId = ngrams.gramId(index);
+            if (gramId == -1) continue;
+            anyKnown = true;
+            int i = (gramId * 0x9E3779B9) >>> (32 - UNIGRAM_COUNTER_BITS);
+            while (ids[i] != -1 && ids[i] != gramId) i = (i + 1) & (ids.length - 1);
+            if (ids[i] == -1) {
+                if (size == ids.length / 2) {
+                    addUnigramLogs(logTable, ids, counts, score);
+                    size = 0;
+                    i = (gramId * 0x9E3779B9) >>> (32 - UNIGRAM_COUNTER_BITS);
+                }
+                ids[i] = gramId;
+                size++;
+            }
+            counts[i] += ngrams.count(index);
+        }
+        addUnigramLogs(logTable, ids, counts, score);
+        return anyKnown ? best(score, candidates) : candidates;
+    }
+
+    /**
+     * Adds the logs of the counted 1-grams, and clears the counter.
+     */
+    private void addUnigramLogs(@Nullable PrecomputedLogTable logTable, int[] ids, int[] counts, double[] score) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != -1) {
+                //1-grams never get the prefix or suffix factor.
+                addLogs(logTable, ids[i], alpha / BASE_FREQ, score, counts[i]);
+                ids[i] = -1;
+                counts[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * @return the positions of the {@link #cascadeShortlist} highest scores in ascending order, without the
+     *         ones that are impossible (negative infinity).
+     */
+    @Nullable
+    private int[] best(double[] score, @Nullable int[] candidates) {
+        int available = (candidates == null) ? score.length : candidates.length;
+        if (available <= cascadeShortlist) return candidates;
+        boolean[] taken = new boolean[score.length];
+        int n = 0;
+        for (; n < cascadeShortlist; n++) {
+            int top = -1;
+            for (int lang = 0; lang < score.length; lang++) {
+                if (!taken[lang] && score[lang] != Double.NEGATIVE_INFINITY && (top == -1 || score[lang] > score[top])) {
+                    top = lang;
+                }
+            }
+            if (top == -1) break;
+            taken[top] = true;
+        }
+        if (n == 0) return candidates;
+        int[] result = new int[n];
+        n = 0;
+        for (int lang = 0; lang < score.length; lang++) {
+            if (taken[lang]) result[n++] = lang;
+        }
+        return result;
+    }
+
+    /**
+     * @param candidates see {@link #restrict}
      */
-    private double[] detectBlockShortText(Map<String, Integer> ngrams) {
-        double[] prob = initProbability();
+    private double[] detectBlockShortText(Grams ngrams, @Nullable int[] candidates, @Nullable double[] priorMap, Scratch scratch) {
+        double[] prob = restrict(initProbability(scratch.prob(), priorMap), candidates, 0d);
         double alpha = this.alpha; //TODO I don't understand what this does.
-        for (Map.Entry<String, Integer> gramWithCount : ngrams.entrySet()) {
-            updateLangProb(prob, gramWithCount.getKey(), gramWithCount.getValue(), alpha);
-            if (Util.normalizeProb(prob) > CONV_THRESHOLD)
+        for (int index = 0; index < ngrams.size(); index++) {
+            int gramId = ngrams.gramId(index);
+            if (gramId != -1) {
+                updateLangProb(prob, gramId, ngrams.weight(index, alpha), ngrams.count(index), candidates);
+            }
+            if (kernel.normalize(prob) > CONV_THRESHOLD)
                 break; //this break ensures that we quit the loop before all probabilities reach 0
         }
-        Util.normalizeProb(prob);
+        kernel.normalize(prob);
         // if (logger.isDebugEnabled()) logger.debug("==> " + sortProbability(prob));
         return prob;
     }
@@ -198,37 +546,227 @@ public final class LanguageDetectorImpl implements LanguageDetector {
      * This is the original algorithm used for all text length.
      * It is inappropriate for short text.
      */
-    private double[] detectBlockLongText(List<String> ngrams) {
-        assert !ngrams.isEmpty();
-        double[] langprob = new double[ngramFrequencyData.getLanguageList().size()];
-        Random rand = new Random(seed.orElse(DEFAULT_SEED));
+    private double[] detectBlockLongText(Grams ngrams, @Nullable int[] candidates, @Nullable double[] priorMap, Scratch scratch) {
+        assert ngrams.size() > 0;
+        double[] langprob = scratch.langprob();
+        Random rand = scratch.random(seed.orElse(DEFAULT_SEED));
+        if (trialStopMargin > 0d) {
+            return detectBlockAdaptiveTrials(ngrams, candidates, priorMap, rand, langprob, scratch.prob());
+        }
         for (int t = 0; t < N_TRIAL; ++t) {
-            double[] prob = initProbability();
+            double[] prob = restrict(initProbability(scratch.prob(), priorMap), candidates, 0d);
             double alpha = this.alpha + (rand.nextGaussian() * ALPHA_WIDTH);
 
-            for (int i = 0; i < ITERATION_LIMIT; i++) {
-                int r = rand.nextInt(ngrams.size());
-                updateLangProb(prob, ngrams.get(r), 1, alpha);
-                if (i % 5 == 0) {
-                    if (Util.normalizeProb(prob) > CONV_THRESHOLD)
-                        break; //this break ensures that we quit the loop before all probabilities reach 0
-                    // if (logger.isTraceEnabled()) logger.trace("> " + sortProbability(prob));
-                }
-            }
+            runTrial(ngrams, candidates, rand, prob, alpha);
             for (int j = 0; j < langprob.length; ++j) langprob[j] += prob[j] / N_TRIAL;
             // if (logger.isDebugEnabled()) logger.debug("==> " + sortProbability(prob));
         }
         return langprob;
     }
 
+    /**
+     * Same as {@link #detectBlockLongText} but stops early when the average is stable,
+     * see {@link LanguageDetectorBuilder#trialStopMargin}.
+     * The trials that are run are the same as the first ones of the non-adaptive mode.
+     */
+    private double[] detectBlockAdaptiveTrials(Grams ngrams, @Nullable int[] candidates, @Nullable double[] priorMap,
+                                               Random rand, double[] langprob, double[] prob) {
+        int previousTop = -1;
+        int t = 0;
+        while (t < N_TRIAL) {
+            restrict(initProbability(prob, priorMap), candidates, 0d);
+            double alpha = this.alpha + (rand.nextGaussian() * ALPHA_WIDTH);
+            runTrial(ngrams, candidates, rand, prob, alpha);
+            for (int j = 0; j < langprob.length; ++j) langprob[j] += prob[j];
+            t++;
+
+            //find the top 2 of the sum, the margin of the average is the margin of the sum divided by t.
+            int top = 0;
+            double first = Double.NEGATIVE_INFINITY, second = Double.NEGATIVE_INFINITY;
+            for (int j = 0; j < langprob.length; ++j) {
+                if (langprob[j] > first) {
+                    second = first;
+                    first = langprob[j];
+                    top = j;
+                } else if (langprob[j] > second) {
+                    second = langprob[j];
+                }
+            }
+            if (top == previousTop && (first - second) / t >= trialStopMargin) {
+                break;
+            }
+            previousTop = top;
+        }
+        for (int j = 0; j < langprob.length; ++j) langprob[j] /= t;
+        return langprob;
+    }
+
+    /**
+     * One trial: updates the prob with up to {@link #ITERATION_LIMIT} randomly picked grams.
+     */
+    private void runTrial(Grams ngrams, @Nullable int[] candidates, Random rand, double[] prob, double alpha) {
+        for (int i = 0; i < ITERATION_LIMIT; i++) {
+            int r = ngrams.draw(rand);
+            int gramId = ngrams.gramId(r);
+            if (gramId != -1) {
+                updateLangProb(prob, gramId, ngrams.weight(r, alpha), 1, candidates);
+            }
+            if (i % 5 == 0) {
+                if (kernel.normalize(prob) > CONV_THRESHOLD)
+                    break; //this break ensures that we quit the loop before all probabilities reach 0
+                // if (logger.isTraceEnabled()) logger.trace("> " + sortProbability(prob));
+            }
+        }
+        if (!table.isExact()) {
+            //the values are only proportional to the probabilities, see ProbabilityTable.update().
+            kernel.normalize(prob);
+        }
+    }
+
+    /**
+     * See {@link LongTextAlgorithm#LOG_SPACE}.
+     * @return null if no gram is known, or if no language is possible at all.
+     */
+    @Nullable
+    private double[] detectBlockLogSpace(Grams ngrams, @Nullable int[] candidates, @Nullable double[] priorMap, Scratch scratch) {
+        double[] score = restrict(initLogProbability(scratch.score(), priorMap), candidates, Double.NEGATIVE_INFINITY);
+        boolean anyKnown = addLogScores(ngrams, limitGrams(ngrams), score);
+        if (!anyKnown) {
+            //same as the other algorithms: no known gram gives the prior probabilities.
+            double[] prob = restrict(initProbability(scratch.prob(), priorMap), candidates, 0d);
+            if (candidates != null) kernel.normalize(prob);
+            return prob;
+        }
+        if (Double.isNaN(Util.normalizeLogProb(score))) return null;
+        return score;
+    }
+
+    /**
+     * Adds the log scores of the grams, see {@link ProbabilityTable#addLogs}.
+     * @return true if at least one gram is known.
+     */
+    private boolean addLogScores(Iterable<Map.Entry<String, Integer>> ngrams, double[] score) {
+        PrecomputedLogTable logTable = logTable();
+        boolean anyKnown = false;
+        for (Map.Entry<String, Integer> gramWithCount : ngrams) {
+            String ngram = gramWithCount.getKey();
+            int gramId = ngramFrequencyData.getGramId(ngram);
+            if (gramId == -1) continue;
+            addLogs(logTable, gramId, weight(ngram, alpha), score, gramWithCount.getValue());
+            anyKnown = true;
+        }
+        return anyKnown;
+    }
+
+    /**
+     * Same as {@link #addLogScores(Iterable, double[])}.
+     * @param indices the grams to add, null for all.
+     */
+    private boolean addLogScores(Grams ngrams, @Nullable int[] indices, double[] score) {
+        PrecomputedLogTable logTable = logTable();
+        boolean anyKnown = false;
+        int n = (indices == null) ? ngrams.size() : indices.length;
+        for (int i = 0; i < n; i++) {
+            int index = (indices == null) ? i : indices[i];
+            int gramId = ngrams.gramId(index);
+            if (gramId == -1) continue;
+            addLogs(logTable, gramId, ngrams.weight(index, alpha), score, ngrams.count(index));
+            anyKnown = true;
+        }
+        return anyKnown;
+    }
+
+    /**
+     * @param count may be negative to remove a gram again.
+     */
+    private void addLogs(@Nullable PrecomputedLogTable logTable, int gramId, double weight, double[] score, int count) {
+        if (logTable != null && weight == logTable.getWeight()) {
+            logTable.addLogs(gramId, score, count);
+        } else {
+            table.addLogs(gramId, score, weight, count);
+        }
+    }
+
+    /**
+     * @return null if alpha is 0, or if the table is mapped: the copy would take about as much heap as a sparse
+     *         table, then the logs are computed per gram instead.
+     */
+    @Nullable
+    private PrecomputedLogTable logTable() {
+        PrecomputedLogTable logTable = this.logTable;
+        if (logTable == null && alpha > 0d && !table.isMapped()) {
+            synchronized (this) {
+                logTable = this.logTable;
+                if (logTable == null) {
+                    logTable = new PrecomputedLogTable(table, alpha / BASE_FREQ);
+                    this.logTable = logTable;
+                }
+            }
+        }
+        return logTable;
+    }
+
+    /**
+     * @return null for all grams, or the indices of the {@link #longTextGramLimit} most frequent ones.
+     *         Equally frequent ones in their order.
+     */
+    @Nullable
+    private int[] limitGrams(Grams ngrams) {
+        if (longTextGramLimit == 0 || ngrams.size() <= longTextGramLimit) {
+            return null;
+        }
+        Integer[] indices = new Integer[ngrams.size()];
+        for (int i = 0; i < indices.length; i++) indices[i] = i;
+        //stable
+        Arrays.sort(indices, (a, b) -> Integer.compare(ngrams.count(b), ngrams.count(a)));
+        int[] limited = new int[longTextGramLimit];
+        for (int i = 0; i < limited.length; i++) limited[i] = indices[i];
+        return limited;
+    }
+
+    /**
+     * Rules out the languages that are not candidates of the {@link ScriptRouter}, or not allowed by the
+     * {@link DetectionOptions}.
+     * @param candidates the language positions to keep in ascending order, null to keep all.
+     * @param excluded the value for the others: 0 for probabilities, negative infinity for log scores.
+     * @return the given array
+     */
+    private static double[] restrict(double[] values, @Nullable int[] candidates, double excluded) {
+        if (candidates == null) return values;
+        int next = 0;
+        for (int lang = 0; lang < values.length; lang++) {
+            if (next < candidates.length && candidates[next] == lang) {
+                next++;
+            } else {
+                values[lang] = excluded;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The log-space counterpart of {@link #initProbability(double[], double[])}.
+     */
+    private double[] initLogProbability(double[] score, @Nullable double[] priorMap) {
+        if (priorMap != null) {
+            for (int i = 0; i < score.length; ++i) score[i] = Math.log(priorMap[i]);
+        } else {
+            //all the same, and 0 is as good as any other number.
+            Arrays.fill(score, 0d);
+        }
+        return score;
+    }
+
     /**
      * Initialize the map of language probabilities.
      * If there is the specified prior map, use it as initial map.
      *
-     * @return initialized map of language probabilities
+     * @param prob is overwritten
+     * @param priorMap the priors by language position, null for none. The detector's own or those of the
+     *                 {@link DetectionOptions}.
+     * @return initialized map of language probabilities, the given array
      */
-    private double[] initProbability() {
-        double[] prob = new double[ngramFrequencyData.getLanguageList().size()];
+    private double[] initProbability(double[] prob, @Nullable double[] priorMap) {
         if (priorMap != null) {
             //TODO analyze and optimize this code, looks like double copy.
             System.arraycopy(priorMap, 0, prob, 0, prob.length);
@@ -241,17 +779,41 @@ public final class LanguageDetectorImpl implements LanguageDetector {
 
 
     /**
-     * update language probabilities with N-gram string(N=1,2,3)
+     * update language probabilities with a known N-gram (N=1,2,3)
      *
+     * @param weight the smoothing term of the gram, see {@link #weight(long, double)}.
      * @param count 1-n: how often the gram occurred.
+     * @param candidates null for all languages, otherwise the others are 0 in prob already.
+     */
+    private void updateLangProb(@NotNull double[] prob, int gramId, double weight, int count,
+                                @Nullable int[] candidates) {
+        if (candidates != null && candidates.length <= prob.length / RESTRICTED_UPDATE_DIVISOR) {
+            table.update(gramId, prob, weight, count, candidates);
+        } else {
+            table.update(gramId, prob, weight, count);
+        }
+    }
+
+    /**
+     * Same as {@link #weight(String, double)} for a packed gram.
      */
-    private boolean updateLangProb(@NotNull double[] prob, @NotNull String ngram, int count, double alpha) {
-        double[] langProbMap = ngramFrequencyData.getProbabilities(ngram);
-        if (langProbMap == null) {
-            return false;
+    private double weight(long gramCode, double alpha) {
+        double weight = alpha / BASE_FREQ;
+        int length = GramCodes.length(gramCode);
+        if (length > 1) {
+            if (prefixFactor != 1.0 && GramCodes.charAt(gramCode, 0) == ' ') {
+                weight *= prefixFactor;
+            } else if (suffixFactor != 1.0 && GramCodes.charAt(gramCode, length - 1) == ' ') {
+                weight *= suffixFactor;
+            }
         }
-        // if (logger.isTraceEnabled()) logger.trace(ngram + "(" + Util.unicodeEncode(ngram) + "):" + Util.wordProbToString(langProbMap, ngramFrequencyData.getLanguageList()));
+        return weight;
+    }
 
+    /**
+     * @return the smoothing term for the gram, see {@link ProbabilityTable#update}.
+     */
+    private double weight(@NotNull String ngram, double alpha) {
         double weight = alpha / BASE_FREQ;
         if (ngram.length() > 1) {
             if (prefixFactor != 1.0 && ngram.charAt(0) == ' ') {
@@ -260,26 +822,21 @@ public final class LanguageDetectorImpl implements LanguageDetector {
                 weight *= suffixFactor;
             }
         }
-        for (int i = 0; i < prob.length; ++i) {
-            for (int amount = 0; amount < count; amount++) {
-                prob[i] *= (weight + langProbMap[i]);
-            }
-        }
-        return true;
+        return weight;
     }
 
 
     /**
      * Returns the detected languages sorted by probabilities descending.
-     * Languages with less probability than PROB_THRESHOLD are ignored.
+     * Languages with less probability than the threshold of the settings are ignored, and those that are not allowed.
      */
     @NotNull
-    private List<DetectedLanguage> sortProbability(double[] prob) {
+    private List<DetectedLanguage> sortProbability(double[] prob, Settings settings) {
         List<DetectedLanguage> list = new ArrayList<>();
         //step 1: add all that have reached a minimal probability:
         for (int j = 0; j < prob.length; ++j) {
             double p = prob[j];
-            if (p >= probabilityThreshold) {
+            if (p >= settings.probabilityThreshold && settings.isAllowed(j)) {
                 list.add(new DetectedLanguage(ngramFrequencyData.getLanguage(j), p));
             }
         }
@@ -287,7 +844,1068 @@ public final class LanguageDetectorImpl implements LanguageDetector {
         if (list.size() >= 2) {
             Collections.sort(list, PROBABILITY_SORTING_COMPARATOR);
         }
+        //step 3: the best ones only
+        if (settings.maxResults > 0 && list.size() > settings.maxResults) {
+            list.subList(settings.maxResults, list.size()).clear();
+        }
         return list;
     }
 
+
+    /**
+     * The grams of a text by index, in the order of the {@link NgramExtractor} methods that return Strings.
+     * The trials pick them by index, and the other algorithms stop early or sum up in that order, so the
+     * order decides the results.
+     */
+    private interface Grams {
+        int size();
+
+        /**
+         * @return -1 if unknown
+         */
+        int gramId(int index);
+
+        /**
+         * @return 1 if not counted.
+         */
+        int count(int index);
+
+        int length(int index);
+
+        /**
+         * See {@link #weight(String, double)}.
+         */
+        double weight(int index, double alpha);
+
+        /**
+         * @return a random index, each with the same chance.
+         */
+        default int draw(Random rand) {
+            return rand.nextInt(size());
+        }
+    }
+
+    private final class CodeGrams implements Grams {
+        private final GramCodeBuffer codes;
+
+        CodeGrams(GramCodeBuffer codes) {
+            this.codes = codes;
+        }
+
+        @Override
+        public int size() {
+            return codes.size();
+        }
+
+        @Override
+        public int gramId(int index) {
+            if (codes.hasGramIds()) return codes.getGramId(index);
+            return ngramFrequencyData.getGramId(codes.get(index));
+        }
+
+        @Override
+        public int count(int index) {
+            return 1;
+        }
+
+        @Override
+        public int length(int index) {
+            return GramCodes.length(codes.get(index));
+        }
+
+        @Override
+        public double weight(int index, double alpha) {
+            return LanguageDetectorImpl.this.weight(codes.get(index), alpha);
+        }
+    }
+
+    /**
+     * For extractors with grams that can't be packed.
+     */
+    private final class StringGrams implements Grams {
+        private final List<String> grams;
+
+        StringGrams(List<String> grams) {
+            this.grams = grams;
+        }
+
+        @Override
+        public int size() {
+            return grams.size();
+        }
+
+        @Override
+        public int gramId(int index) {
+            return ngramFrequencyData.getGramId(grams.get(index));
+        }
+
+        @Override
+        public int count(int index) {
+            return 1;
+        }
+
+        @Override
+        public int length(int index) {
+            return grams.get(index).length();
+        }
+
+        @Override
+        public double weight(int index, double alpha) {
+            return LanguageDetectorImpl.this.weight(grams.get(index), alpha);
+        }
+    }
+
+
+    private final class CountedCodeGrams implements Grams {
+        private final GramCountMap counts;
+
+        CountedCodeGrams(GramCountMap counts) {
+            this.counts = counts;
+        }
+
+        @Override
+        public int size() {
+            return counts.size();
+        }
+
+        @Override
+        public int gramId(int index) {
+            if (counts.hasGramIds()) return counts.gramId(index);
+            return ngramFrequencyData.getGramId(counts.code(index));
+        }
+
+        @Override
+        public int count(int index) {
+            return counts.count(index);
+        }
+
+        @Override
+        public int length(int index) {
+            return GramCodes.length(counts.code(index));
+        }
+
+        @Override
+        public double weight(int index, double alpha) {
+            return LanguageDetectorImpl.this.weight(counts.code(index), alpha);
+        }
+    }
+
+    /**
+     * The grams of the text without extracting them, for {@link LongTextAlgorithm#SAMPLED_TRIALS}.
+     * The indices include the grams that the filter rejects, they are unknown, and {@link #draw} skips them.
+     */
+    private final class ViewGrams implements Grams {
+        private final GramView view;
+        private final int size;
+        //the gram looked up by the last draw, so that it is not looked up again.
+        private int lastIndex = -1;
+        private int lastGramId;
+
+        ViewGrams(GramView view) {
+            this.view = view;
+            this.size = view.isEmpty() ? 0 : view.size();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int gramId(int index) {
+            if (index == lastIndex) return lastGramId;
+            return lookUp(index);
+        }
+
+        private int lookUp(int index) {
+            if (!view.isUsed(index)) return -1;
+            return ngramFrequencyData.getGramId(view.code(index));
+        }
+
+        @Override
+        public int count(int index) {
+            return 1;
+        }
+
+        @Override
+        public int length(int index) {
+            return GramCodes.length(view.code(index));
+        }
+
+        @Override
+        public double weight(int index, double alpha) {
+            return LanguageDetectorImpl.this.weight(view.code(index), alpha);
+        }
+
+        /**
+         * Draws again while the filter rejects the gram, and with {@link #skipUnknownGrams} also while it is
+         * unknown. That gives each used gram the same chance, as when drawing from the extracted grams.
+         * Gives up after {@link #MAX_REDRAWS}, for filters that reject nearly all, or text without known grams.
+         */
+        @Override
+        public int draw(Random rand) {
+            int index = rand.nextInt(size);
+            for (int i = 0; i < MAX_REDRAWS && !isDrawable(index); i++) {
+                index = rand.nextInt(size);
+            }
+            return index;
+        }
+
+        private boolean isDrawable(int index) {
+            if (!skipUnknownGrams) return view.isUsed(index);
+            lastGramId = lookUp(index);
+            lastIndex = index;
+            return lastGramId != -1;
+        }
+    }
+
+    /**
+     * Grams that are looked up once, so that {@link #gramId} is just an array read. With {@link #skipUnknownGrams}
+     * the unknown ones are left out, the indices then don't match the ones of the source anymore.
+     */
+    private static final class ResolvedGrams implements Grams {
+        private final Grams source;
+        private final int size;
+        private final int[] gramIds;
+        /**
+         * The index in the source per index, null if the same.
+         */
+        @Nullable
+        private final int[] sourceIndex;
+
+        ResolvedGrams(Grams source, int size, int[] gramIds, @Nullable int[] sourceIndex) {
+            this.source = source;
+            this.size = size;
+            this.gramIds = gramIds;
+            this.sourceIndex = sourceIndex;
+        }
+
+        private int toSource(int index) {
+            return (sourceIndex == null) ? index : sourceIndex[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int gramId(int index) {
+            return gramIds[index];
+        }
+
+        @Override
+        public int count(int index) {
+            return source.count(toSource(index));
+        }
+
+        @Override
+        public int length(int index) {
+            return source.length(toSource(index));
+        }
+
+        @Override
+        public double weight(int index, double alpha) {
+            return source.weight(toSource(index), alpha);
+        }
+    }
+
+    /**
+     * The distinct grams of the text, for {@link LongTextAlgorithm#ALIAS_TRIALS}: each is looked up once, and
+     * {@link #draw} picks them with a chance proportional to their count.
+     */
+    private static final class AliasGrams implements Grams {
+        private final Grams counted;
+        private final AliasTable aliases;
+
+        /**
+         * @param counted resolved, see {@link ResolvedGrams}.
+         * @param aliases built with the counts of the counted grams.
+         */
+        AliasGrams(Grams counted, AliasTable aliases) {
+            this.counted = counted;
+            this.aliases = aliases;
+        }
+
+        @Override
+        public int size() {
+            return counted.size();
+        }
+
+        @Override
+        public int gramId(int index) {
+            return counted.gramId(index);
+        }
+
+        @Override
+        public int count(int index) {
+            return counted.count(index);
+        }
+
+        @Override
+        public int length(int index) {
+            return counted.length(index);
+        }
+
+        @Override
+        public double weight(int index, double alpha) {
+            return counted.weight(index, alpha);
+        }
+
+        @Override
+        public int draw(Random rand) {
+            return aliases.draw(rand);
+        }
+    }
+
+    /**
+     * For extractors with grams that can't be packed.
+     */
+    private final class CountedStringGrams implements Grams {
+        private final String[] grams;
+        private final int[] counts;
+
+        CountedStringGrams(Map<String, Integer> countedGrams) {
+            grams = new String[countedGrams.size()];
+            counts = new int[countedGrams.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> gramWithCount : countedGrams.entrySet()) {
+                grams[i] = gramWithCount.getKey();
+                counts[i] = gramWithCount.getValue();
+                i++;
+            }
+        }
+
+        @Override
+        public int size() {
+            return grams.length;
+        }
+
+        @Override
+        public int gramId(int index) {
+            return ngramFrequencyData.getGramId(grams[index]);
+        }
+
+        @Override
+        public int count(int index) {
+            return counts[index];
+        }
+
+        @Override
+        public int length(int index) {
+            return grams[index].length();
+        }
+
+        @Override
+        public double weight(int index, double alpha) {
+            return LanguageDetectorImpl.this.weight(grams[index], alpha);
+        }
+    }
+
+
+    /**
+     * The working memory of a detection. Not thread-safe.
+     *
+     * <p>The detector methods use a new one per call, which then creates everything lazily just like before.
+     * A {@link Session} keeps one and reuses it.</p>
+     */
+    private final class Scratch {
+        /**
+         * True to keep the gram collections for the next call.
+         */
+        private final boolean reuse;
+        private double[] prob;
+        private double[] langprob;
+        private double[] score;
+        private Random rand;
+        private List<String> grams;
+        private GramCodeBuffer gramCodes;
+        private Map<String, Integer> countedGrams;
+        private GramCountMap gramCounts;
+        private GramView gramView;
+        private AliasTable aliasTable;
+        private int[] gramIds;
+        private int[] sourceIndex;
+        private int[] gramWeights;
+        private int[] unigramIds;
+        private int[] unigramCounts;
+
+        Scratch(boolean reuse) {
+            this.reuse = reuse;
+        }
+
+        double[] prob() {
+            if (prob == null) prob = newLanguageArray();
+            return prob;
+        }
+
+        /**
+         * @return all 0
+         */
+        double[] langprob() {
+            if (langprob == null) {
+                langprob = newLanguageArray();
+            } else {
+                Arrays.fill(langprob, 0d);
+            }
+            return langprob;
+        }
+
+        double[] score() {
+            if (score == null) score = newLanguageArray();
+            return score;
+        }
+
+        /**
+         * @return all -1, and left that way by the user.
+         */
+        int[] unigramIds() {
+            if (unigramIds == null) {
+                unigramIds = new int[1 << UNIGRAM_COUNTER_BITS];
+                Arrays.fill(unigramIds, -1);
+            }
+            return unigramIds;
+        }
+
+        /**
+         * @return all 0, and left that way by the user.
+         */
+        int[] unigramCounts() {
+            if (unigramCounts == null) unigramCounts = new int[1 << UNIGRAM_COUNTER_BITS];
+            return unigramCounts;
+        }
+
+        private double[] newLanguageArray() {
+            return new double[ngramFrequencyData.getLanguageList().size()];
+        }
+
+        /**
+         * @return a generator in the same state as a new Random(seed).
+         */
+        Random random(long seed) {
+            if (rand == null) {
+                rand = new Random(seed);
+            } else {
+                rand.setSeed(seed);
+            }
+            return rand;
+        }
+
+        /**
+         * Packed without creating a String per gram if the extractor can, see {@link NgramExtractor#isPackable()}.
+         */
+        Grams extractGrams(CharSequence text) {
+            if (ngramExtractor.isPackable()) {
+                if (gramCodes == null || !reuse) {
+                    //at most this many, the padding included.
+                    gramCodes = new GramCodeBuffer((text.length() + 2) * ngramExtractor.getGramLengths().size());
+                } else {
+                    gramCodes.clear();
+                }
+                //the trials look up only the grams they draw, the trie pays off if all are resolved anyway.
+                if (trieExtractor != null && skipUnknownGrams) {
+                    trieExtractor.extractGrams(text, gramCodes);
+                } else {
+                    ngramExtractor.extractGrams(text, gramCodes);
+                }
+                //the order of the old extraction, the trials pick by index.
+                gramCodes.groupByLength(ngramExtractor.getGramLengths());
+                return new CodeGrams(gramCodes);
+            }
+            if (!reuse) return new StringGrams(ngramExtractor.extractGrams(text));
+            if (grams == null) {
+                grams = new ArrayList<>();
+            } else {
+                grams.clear();
+            }
+            ngramExtractor.extractGrams(text, grams);
+            return new StringGrams(grams);
+        }
+
+        /**
+         * Nothing is extracted, see {@link ViewGrams}. Only if the extractor {@link NgramExtractor#isPackable()}.
+         */
+        Grams viewGrams(CharSequence text) {
+            if (gramView == null || !reuse) {
+                gramView = ngramExtractor.newView();
+            }
+            return new ViewGrams(gramView.reset(text));
+        }
+
+        /**
+         * The counted grams, resolved and with the alias table for drawing, see {@link AliasGrams}.
+         */
+        Grams aliasGrams(CharSequence text) {
+            //drawn randomly, the order does not matter.
+            Grams counted = extractCountedGrams(text, false);
+            if (counted.size() == 0) return counted;
+            counted = resolve(counted);
+            int size = counted.size();
+            if (gramWeights == null || gramWeights.length < size || !reuse) {
+                gramWeights = new int[size];
+            }
+            for (int index = 0; index < size; index++) {
+                gramWeights[index] = counted.count(index);
+            }
+            if (aliasTable == null || !reuse) aliasTable = new AliasTable();
+            aliasTable.build(gramWeights, size);
+            return new AliasGrams(counted, aliasTable);
+        }
+
+        /**
+         * Looks up each gram once, see {@link ResolvedGrams}.
+         * @return the source grams if they are all unknown and {@link #skipUnknownGrams} would leave none.
+         */
+        Grams resolve(Grams source) {
+            int size = source.size();
+            if (gramIds == null || gramIds.length < size || !reuse) {
+                gramIds = new int[size];
+                sourceIndex = skipUnknownGrams ? new int[size] : null;
+            }
+            if (!skipUnknownGrams) {
+                for (int index = 0; index < size; index++) {
+                    gramIds[index] = source.gramId(index);
+                }
+                return new ResolvedGrams(source, size, gramIds, null);
+            }
+            int known = 0;
+            for (int index = 0; index < size; index++) {
+                int gramId = source.gramId(index);
+                if (gramId != -1) {
+                    gramIds[known] = gramId;
+                    sourceIndex[known] = index;
+                    known++;
+                }
+            }
+            if (known == 0) return source;
+            return new ResolvedGrams(source, known, gramIds, sourceIndex);
+        }
+
+        /**
+         * Counted in a {@link GramCountMap} if the extractor can pack the grams, see {@link NgramExtractor#isPackable()}.
+         */
+        Grams extractCountedGrams(CharSequence text) {
+            return extractCountedGrams(text, true);
+        }
+
+        /**
+         * @param inOrder false if the order of the grams does not matter, then they are left in the order of the
+         *                packed extraction. Only makes a difference for packable extractors.
+         */
+        Grams extractCountedGrams(CharSequence text, boolean inOrder) {
+            if (ngramExtractor.isPackable()) {
+                if (gramCounts == null || !reuse) {
+                    //about half of the grams are distinct in short text, it grows if needed.
+                    gramCounts = new GramCountMap(Math.min((text.length() + 2) * ngramExtractor.getGramLengths().size() / 2, 1024));
+                } else {
+                    gramCounts.clear();
+                }
+                if (trieExtractor != null) {
+                    trieExtractor.extractGrams(text, gramCounts);
+                } else {
+                    ngramExtractor.extractGrams(text, gramCounts);
+                }
+                //the order of the old extraction, the algorithms stop early or sum up in this order.
+                if (inOrder) gramCounts.groupByLength(ngramExtractor.getGramLengths());
+                return new CountedCodeGrams(gramCounts);
+            }
+            if (!reuse) return new CountedStringGrams(ngramExtractor.extractCountedGrams(text));
+            if (countedGrams == null) {
+                countedGrams = new LinkedHashMap<>();
+            } else {
+                countedGrams.clear();
+            }
+            ngramExtractor.extractCountedGrams(text, countedGrams);
+            return new CountedStringGrams(countedGrams);
+        }
+    }
+
+    /**
+     * Scores each position of the text in log space (like {@link LongTextAlgorithm#LOG_SPACE}) with the grams
+     * that end there, and labels it with the best language of the window around it. The window sum moves along
+     * the text by adding the grams that come in and subtracting the ones that drop out, so the cost is linear
+     * in the text length. Then short runs are merged into their neighbors, and each span gets the probability
+     * of its language from the sum of all its grams.
+     *
+     * @throws IllegalStateException if alpha is 0: then unknown grams make a language impossible, and can't
+     *         be subtracted again.
+     */
+    @Override
+    public List<LanguageSpan> segment(CharSequence text, int windowLength) {
+        if (windowLength < 1) throw new IllegalArgumentException("windowLength must be at least 1, but was: " + windowLength);
+        if (alpha <= 0d) throw new IllegalStateException("Segmentation needs an alpha larger than 0!");
+        int length = text.length();
+        if (length == 0) return Collections.emptyList();
+        int numLanguages = ngramFrequencyData.getLanguageList().size();
+        PrecomputedLogTable logTable = logTable();
+
+        //step 1: the known grams, by the position of their last char in the padded text.
+        Character padding = ngramExtractor.getTextPadding();
+        int offset = (padding != null && text.charAt(0) != padding) ? 1 : 0;
+        boolean padEnd = padding != null && text.charAt(length - 1) != padding;
+        int paddedLength = offset + length + (padEnd ? 1 : 0);
+        List<Integer> gramLengths = ngramExtractor.getGramLengths();
+        int perPosition = gramLengths.size();
+        int[] gramIds = new int[paddedLength * perPosition];
+        double[] weights = new double[paddedLength * perPosition];
+        Arrays.fill(gramIds, -1);
+        NgramFilter filter = ngramExtractor.getFilter();
+        if (ngramExtractor.isPackable()) {
+            //a rolling window like NgramExtractor.extractGrams(), the padding chars are passed virtually.
+            long codeWindow = 0;
+            for (int end = 0; end < paddedLength; end++) {
+                char c = (end < offset || end >= offset + length) ? padding : text.charAt(end - offset);
+                codeWindow = (codeWindow << 16) | c;
+                int slot = end * perPosition;
+                for (int gramLength : gramLengths) {
+                    if (end + 1 < gramLength) continue;
+                    long code = GramCodes.packLast(codeWindow, gramLength);
+                    if (filter != null && !filter.use(code)) continue;
+                    int gramId = ngramFrequencyData.getGramId(code);
+                    if (gramId == -1) continue;
+                    gramIds[slot] = gramId;
+                    weights[slot] = weight(code, alpha);
+                    slot++;
+                }
+            }
+        } else {
+            StringBuilder padded = new StringBuilder(paddedLength);
+            if (offset == 1) padded.append((char) padding);
+            padded.append(text);
+            if (padEnd) padded.append((char) padding);
+            for (int end = 0; end < paddedLength; end++) {
+                int slot = end * perPosition;
+                for (int gramLength : gramLengths) {
+                    if (end + 1 < gramLength) continue;
+                    String gram = padded.substring(end + 1 - gramLength, end + 1);
+                    if (filter != null && !filter.use(gram)) continue;
+                    int gramId = ngramFrequencyData.getGramId(gram);
+                    if (gramId == -1) continue;
+                    gramIds[slot] = gramId;
+                    weights[slot] = weight(gram, alpha);
+                    slot++;
+                }
+            }
+        }
+
+        //step 2: the best language of the window around each position, -1 if no gram is known there.
+        double[] logPriors = initLogProbability(new double[numLanguages], priorMap);
+        double[] window = new double[numLanguages];
+        int[] labels = new int[paddedLength];
+        int windowStart = 0, windowEnd = 0, knownInWindow = 0;
+        for (int pos = 0; pos < paddedLength; pos++) {
+            int wantedStart = Math.max(0, Math.min(pos - windowLength / 2, paddedLength - windowLength));
+            int wantedEnd = Math.min(paddedLength, wantedStart + windowLength);
+            for (; windowEnd < wantedEnd; windowEnd++) {
+                knownInWindow += addPosition(logTable, gramIds, weights, windowEnd, perPosition, window, 1);
+            }
+            for (; windowStart < wantedStart; windowStart++) {
+                knownInWindow -= addPosition(logTable, gramIds, weights, windowStart, perPosition, window, -1);
+            }
+            labels[pos] = knownInWindow == 0 ? -1 : argmax(window, logPriors);
+        }
+
+        //the padding chars are not in the text: they go with the char next to them, so that no span is empty.
+        if (offset == 1) labels[0] = labels[1];
+        if (padEnd) labels[paddedLength - 1] = labels[paddedLength - 2];
+
+        //step 3: runs of the same language, the short ones merged into a neighbor.
+        List<int[]> runs = toRuns(labels, Math.max(1, windowLength / 2));
+        if (runs.isEmpty()) return Collections.emptyList();
+
+        //step 4: the probability of each span, from all its grams. The positions back to the unpadded text.
+        List<LanguageSpan> spans = new ArrayList<>(runs.size());
+        for (int i = 0; i < runs.size(); i++) {
+            int[] run = runs.get(i);
+            double[] score = logPriors.clone();
+            for (int pos = run[0]; pos < run[1]; pos++) {
+                addPosition(logTable, gramIds, weights, pos, perPosition, score, 1);
+            }
+            Util.normalizeLogProb(score);
+            int start = (i == 0) ? 0 : run[0] - offset;
+            int end = (i == runs.size() - 1) ? length : run[1] - offset;
+            spans.add(new LanguageSpan(start, end, ngramFrequencyData.getLanguage(run[2]), score[run[2]]));
+        }
+        return spans;
+    }
+
+    /**
+     * @return the number of known grams at the position.
+     */
+    private int addPosition(@Nullable PrecomputedLogTable logTable, int[] gramIds, double[] weights,
+                            int position, int perPosition, double[] score, int count) {
+        int known = 0;
+        for (int slot = position * perPosition; slot < (position + 1) * perPosition; slot++) {
+            if (gramIds[slot] == -1) break;
+            addLogs(logTable, gramIds[slot], weights[slot], score, count);
+            known++;
+        }
+        return known;
+    }
+
+    private static int argmax(double[] score, double[] logPriors) {
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int j = 0; j < score.length; j++) {
+            double s = score[j] + logPriors[j];
+            if (s > bestScore) {
+                bestScore = s;
+                best = j;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param labels the language per position, -1 for unknown.
+     * @return runs as {start, end, language} that cover all positions. Empty if all are unknown.
+     */
+    private static List<int[]> toRuns(int[] labels, int minLength) {
+        //unknown positions take the language before them, or after them at the start.
+        int firstKnown = 0;
+        while (firstKnown < labels.length && labels[firstKnown] == -1) firstKnown++;
+        if (firstKnown == labels.length) return Collections.emptyList();
+        for (int pos = 0; pos < labels.length; pos++) {
+            if (labels[pos] == -1) labels[pos] = (pos < firstKnown) ? labels[firstKnown] : labels[pos - 1];
+        }
+
+        //a short run is added to the run before it. Short runs at the start go to the first long run.
+        List<int[]> runs = new ArrayList<>();
+        for (int pos = 0; pos < labels.length; ) {
+            int end = pos + 1;
+            while (end < labels.length && labels[end] == labels[pos]) end++;
+            int[] last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+            if (end - pos >= minLength) {
+                if (last != null && last[2] == labels[pos]) {
+                    last[1] = end;
+                } else {
+                    runs.add(new int[]{last == null ? 0 : pos, end, labels[pos]});
+                }
+            } else if (last != null) {
+                last[1] = end;
+            }
+            pos = end;
+        }
+        if (runs.isEmpty()) {
+            //all runs are short: the language of most positions.
+            int[] counts = new int[Arrays.stream(labels).max().getAsInt() + 1];
+            for (int label : labels) counts[label]++;
+            int best = 0;
+            for (int j = 1; j < counts.length; j++) if (counts[j] > counts[best]) best = j;
+            runs.add(new int[]{0, labels.length, best});
+        }
+        return runs;
+    }
+
+    /**
+     * See {@link StreamingDetector}.
+     *
+     * <p>The log scores are sums, so adding the grams of each chunk gives the same as scoring the whole text at
+     * once. The grams that span two chunks are made with a rolling window of the last chars, like
+     * {@link NgramExtractor#extractGrams(CharSequence, com.optimaize.langdetect.ngram.GramConsumer)} does it for
+     * a whole text. For an extractor that can't pack its grams the last chars of the text are kept in front of
+     * the next chunk instead. The padding at the start is added with the first char, the one at the end is
+     * added virtually whenever the result is read.</p>
+     *
+     * <p>The log-space probabilities get close to 1 after a few grams, also when the text so far is ambiguous,
+     * because every char is counted once in each gram that contains it. So the stop criterion divides the gram
+     * scores by that number, the sum of the gram lengths (6 for lengths 1-3), as if each char was scored once.
+     * With the built-in profiles a wikipedia text needs some 50-120 chars to reach 0.999 like that.</p>
+     */
+    private final class Stream implements StreamingDetector {
+        private final double stopConfidence;
+        @Nullable
+        private final Character padding = ngramExtractor.getTextPadding();
+        /**
+         * How many times the scores count each char, see the class doc.
+         */
+        private final double temperature;
+        /**
+         * The log of the priors, null if there are none.
+         */
+        @Nullable
+        private final double[] logPriors;
+
+        /**
+         * The sums of the log scores of all grams so far, without the end padding.
+         */
+        private final double[] score = initLogProbability(new double[ngramFrequencyData.getLanguageList().size()], priorMap);
+        /**
+         * The result, reused for each read.
+         */
+        private final double[] current = new double[score.length];
+
+        /**
+         * For packable grams: the gram lengths, null if the extractor can't pack them.
+         */
+        @Nullable
+        private final int[] gramLengths;
+        @Nullable
+        private final NgramFilter filter = ngramExtractor.getFilter();
+        /**
+         * For packable grams: the last chars, see {@link GramCodes#packLast}, and how many of them are valid.
+         */
+        private long window = 0;
+        private int windowLength = 0;
+        /**
+         * The grams of a chunk or of the end padding.
+         */
+        private final GramCountMap counts = new GramCountMap();
+        private final Grams countedGrams = new CountedCodeGrams(counts);
+
+        /**
+         * For grams that can't be packed: the last chars of the text, and the grams of a chunk or of the end
+         * padding.
+         */
+        private final StringBuilder text = new StringBuilder();
+        private final Map<String, Integer> grams = new LinkedHashMap<>();
+        /**
+         * How many chars of the text to keep for the next chunk: one less than the longest gram.
+         */
+        private final int keep;
+
+        /**
+         * The previous char, for collapsing spaces. 0 at the start like in the TextObject.
+         * Also the last char of the text, if there is any.
+         */
+        private char pre = 0;
+        private int length = 0;
+        private boolean anyGram = false;
+        private boolean anyKnown = false;
+        private boolean done = false;
+
+        Stream(double stopConfidence) {
+            this.stopConfidence = stopConfidence;
+            List<Integer> lengths = ngramExtractor.getGramLengths();
+            int sum = 0;
+            for (int gramLength : lengths) sum += gramLength;
+            this.temperature = sum;
+            if (priorMap == null) {
+                this.logPriors = null;
+            } else {
+                this.logPriors = new double[priorMap.length];
+                for (int i = 0; i < logPriors.length; i++) logPriors[i] = Math.log(priorMap[i]);
+            }
+            if (ngramExtractor.isPackable()) {
+                this.gramLengths = new int[lengths.size()];
+                for (int i = 0; i < gramLengths.length; i++) gramLengths[i] = lengths.get(i);
+            } else {
+                this.gramLengths = null;
+            }
+            this.keep = Collections.max(lengths) - 1;
+        }
+
+        @NotNull
+        @Override
+        public StreamingDetector append(@NotNull CharSequence chunk) {
+            if (done) return this;
+            int before = length;
+            int from = text.length();
+            counts.clear();
+            for (int i = 0; i < chunk.length(); i++) {
+                char c = CharNormalizer.normalize(chunk.charAt(i));
+                if (c != ' ' || pre != ' ') {
+                    if (length == 0 && padding != null && c != padding) {
+                        push(padding);
+                    }
+                    push(c);
+                    length++;
+                }
+                pre = c;
+            }
+            if (length == before) return this;
+
+            if (gramLengths == null) {
+                grams.clear();
+                ngramExtractor.extractCountedGramsFrom(text, from, grams);
+                if (!grams.isEmpty()) {
+                    anyGram = true;
+                    anyKnown |= addLogScores(grams.entrySet(), score);
+                }
+                text.delete(0, Math.max(0, text.length() - keep));
+            } else if (!counts.isEmpty()) {
+                anyGram = true;
+                anyKnown |= addLogScores(countedGrams, null, score);
+            }
+
+            double[] langprob = currentProbabilities(true);
+            if (langprob != null) {
+                for (double p : langprob) {
+                    if (p >= stopConfidence) {
+                        done = true;
+                        break;
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds the char to the text, for packed grams the grams that end with it are counted.
+         */
+        private void push(char c) {
+            if (gramLengths == null) {
+                text.append(c);
+                return;
+            }
+            window = (window << 16) | c;
+            if (windowLength < GramCodes.MAX_LENGTH) windowLength++;
+            countGrams(window, windowLength);
+        }
+
+        private void countGrams(long window, int windowLength) {
+            assert gramLengths != null;
+            for (int gramLength : gramLengths) {
+                if (gramLength > windowLength) continue;
+                long code = GramCodes.packLast(window, gramLength);
+                if (filter == null || filter.use(code)) {
+                    counts.add(code, 1);
+                }
+            }
+        }
+
+        /**
+         * @param tempered for the stop criterion, see the class doc.
+         * @return like {@link #detectBlockLogSpace}, including the end padding. The array is reused.
+         */
+        @Nullable
+        private double[] currentProbabilities(boolean tempered) {
+            System.arraycopy(score, 0, current, 0, score.length);
+            boolean anyKnown = this.anyKnown;
+            boolean anyGram = this.anyGram;
+            if (padding != null && length > 0 && pre != padding) {
+                if (gramLengths == null) {
+                    int from = text.length();
+                    text.append((char) padding);
+                    grams.clear();
+                    ngramExtractor.extractCountedGramsFrom(text, from, grams);
+                    text.setLength(from);
+                    if (!grams.isEmpty()) {
+                        anyGram = true;
+                        anyKnown |= addLogScores(grams.entrySet(), current);
+                    }
+                } else {
+                    counts.clear();
+                    countGrams((window << 16) | padding, Math.min(windowLength + 1, GramCodes.MAX_LENGTH));
+                    if (!counts.isEmpty()) {
+                        anyGram = true;
+                        anyKnown |= addLogScores(countedGrams, null, current);
+                    }
+                }
+            }
+            if (!anyGram) return null;
+            if (!anyKnown) return initProbability(current, priorMap);
+            if (tempered) {
+                for (int i = 0; i < current.length; i++) {
+                    double logPrior = (logPriors == null) ? 0d : logPriors[i];
+                    current[i] = (current[i] - logPrior) / temperature + logPrior;
+                }
+            }
+            if (Double.isNaN(Util.normalizeLogProb(current))) return null;
+            return current;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+
+        @NotNull
+        @Override
+        public List<DetectedLanguage> getProbabilities() {
+            double[] langprob = currentProbabilities(false);
+            return langprob == null ? Collections.emptyList() : sortProbability(langprob, defaults);
+        }
+
+        @NotNull
+        @Override
+        public Optional<LdLocale> detect() {
+            double[] langprob = currentProbabilities(false);
+            return langprob == null ? Optional.empty() : bestLocale(langprob, defaults);
+        }
+    }
+
+    /**
+     * See {@link DetectionSession}.
+     */
+    private final class Session implements DetectionSession {
+        private final Scratch scratch = new Scratch(true);
+
+        @Override
+        public Optional<LdLocale> detect(CharSequence text) {
+            return LanguageDetectorImpl.this.detect(text, scratch, defaults);
+        }
+
+        @Override
+        public List<DetectedLanguage> getProbabilities(CharSequence text) {
+            return LanguageDetectorImpl.this.getProbabilities(text, scratch, defaults);
+        }
+
+        @Override
+        public Optional<LdLocale> detect(CharSequence text, DetectionOptions options) {
+            return LanguageDetectorImpl.this.detect(text, scratch, settings(options));
+        }
+
+        @Override
+        public List<DetectedLanguage> getProbabilities(CharSequence text, DetectionOptions options) {
+            return LanguageDetectorImpl.this.getProbabilities(text, scratch, settings(options));
+        }
+    }
+
+    /**
+     * The settings of one call: those of the builder, or of {@link DetectionOptions}.
+     */
+    private static final class Settings {
+        /**
+         * See {@link #initProbability}, null for none.
+         */
+        @Nullable
+        final double[] priorMap;
+        /**
+         * The allowed language positions in ascending order, null for all.
+         */
+        @Nullable
+        final int[] allowed;
+        final double probabilityThreshold;
+        final double minimalConfidence;
+        /**
+         * 0 for all.
+         */
+        final int maxResults;
+
+        Settings(@Nullable double[] priorMap, @Nullable int[] allowed,
+                 double probabilityThreshold, double minimalConfidence, int maxResults) {
+            this.priorMap = priorMap;
+            this.allowed = allowed;
+            this.probabilityThreshold = probabilityThreshold;
+            this.minimalConfidence = minimalConfidence;
+            this.maxResults = maxResults;
+        }
+
+        boolean isAllowed(int languagePos) {
+            return allowed == null || Arrays.binarySearch(allowed, languagePos) >= 0;
+        }
+
+        /**
+         * @param candidates in ascending order, null for all languages. Not modified.
+         * @return the candidates that are allowed, in ascending order. Null for all languages.
+         */
+        @Nullable
+        int[] restrict(@Nullable int[] candidates) {
+            if (allowed == null) return candidates;
+            if (candidates == null) return allowed;
+            int[] result = new int[Math.min(candidates.length, allowed.length)];
+            int n = 0;
+            for (int lang : candidates) {
+                if (isAllowed(lang)) result[n++] = lang;
+            }
+            return Arrays.copyOf(result, n);
+        }
+    }
+
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A part of a text that is in one language, see {@link LanguageDetector#segment}.
+ *
+ * <p>This class is immutable.</p>
+ */
+public final class LanguageSpan {
+
+    private final int start;
+    private final int end;
+    @NotNull
+    private final LdLocale locale;
+    private final double probability;
+
+    /**
+     * @param start inclusive
+     * @param end exclusive
+     * @param probability 0-1
+     */
+    public LanguageSpan(int start, int end, @NotNull LdLocale locale, double probability) {
+        if (start < 0 || end < start) throw new IllegalArgumentException("Invalid span: " + start + "-" + end);
+        if (probability < 0d || probability > 1d) throw new IllegalArgumentException("Probability must be 0-1 but was " + probability);
+        this.start = start;
+        this.end = end;
+        this.locale = locale;
+        this.probability = probability;
+    }
+
+    /**
+     * @return the position of the first char in the text, inclusive.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * @return the position after the last char in the text, exclusive.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    @NotNull
+    public LdLocale getLocale() {
+        return locale;
+    }
+
+    /**
+     * @return 0-1, how likely the whole span is in this language.
+     */
+    public double getProbability() {
+        return probability;
+    }
+
+    @Override
+    public String toString() {
+        return "LanguageSpan[" + start + "-" + end + " " + locale + ":" + probability + "]";
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.ngram.GramCodes;
+
+import java.util.Arrays;
+
+/**
+ * Maps packed gram codes (see {@link GramCodes}) to gram ids 0-n.
+ *
+ * <p>Open addressing with linear probing on two parallel primitive arrays, so a lookup is a multiply, a shift
+ * and usually a single array read. No objects per entry.</p>
+ *
+ * <p>The key 0 marks a free slot, this works because 0 is never a valid gram code.</p>
+ *
+ * <p>Only filled while the {@link NgramFrequencyData} is created, read-only afterwards.</p>
+ */
+final class LongGramIndex extends GramIndex {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int shift;
+    private int size;
+
+    /**
+     * @param expectedSize the table is sized so that this many entries stay below a load factor of 0.5.
+     */
+    LongGramIndex(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        if (capacity <= 0) throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private int slot(long key) {
+        return (int) ((key * GOLDEN) >>> shift);
+    }
+
+    @Override
+    int get(long key) {
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) return values[i];
+            if (k == 0L) return -1;
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * @param key a valid gram code, not 0.
+     * @param value 0-n
+     * @return the previous id, or -1 if it was not contained.
+     */
+    int put(long key, int value) {
+        assert key != 0L;
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                int old = values[i];
+                values[i] = value;
+                return old;
+            }
+            if (k == 0L) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size * 2 > keys.length) {
+                    rehash();
+                }
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    long[] getCodes(int numGrams) {
+        long[] codes = new long[numGrams];
+        Arrays.fill(codes, GramCodes.NONE);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0L) {
+                codes[values[i]] = keys[i];
+            }
+        }
+        return codes;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k != 0L) {
+                int j = slot(k);
+                while (keys[j] != 0L) j = (j + 1) & mask;
+                keys[j] = k;
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+/**
+ * How the detector scores text that is longer than the {@link LanguageDetectorBuilder#shortTextAlgorithm} limit.
+ */
+public enum LongTextAlgorithm {
+
+    /**
+     * The original algorithm: 7 trials, each multiplies the probabilities of up to 1000 randomly drawn n-grams
+     * of the text, with a randomly varied alpha. The results depend on the seed.
+     */
+    RANDOM_TRIALS,
+
+    /**
+     * Same as RANDOM_TRIALS, but the n-grams are not extracted from the text first. Each draw picks a random
+     * position and gram length in the text and builds just that gram, one that the filter rejects is drawn again.
+     *
+     * <p>The grams are drawn with the same distribution as in RANDOM_TRIALS, so the accuracy is the same, but not
+     * the same grams for the same seed. The memory and the time of the trials depend on the number of draws
+     * (at most 7 x 1000), not on the text length.</p>
+     *
+     * <p>Needs an n-gram extractor that can pack its grams (lengths 1-3, as all the built-in ones), otherwise this
+     * falls back to RANDOM_TRIALS.</p>
+     */
+    SAMPLED_TRIALS,
+
+    /**
+     * Same as RANDOM_TRIALS, but the n-grams are counted first, and each distinct one is looked up in the
+     * profiles once. The draws then pick from the counts with an alias table, in constant time and without any
+     * more lookups.
+     *
+     * <p>The grams are drawn with the same distribution as in RANDOM_TRIALS, so the accuracy is the same, but not
+     * the same grams for the same seed. The memory depends on the number of distinct grams, not on the text
+     * length. Compared to SAMPLED_TRIALS this reads all of the text once, but it's faster when a text repeats
+     * its grams a lot, and the draws need no filtering.</p>
+     */
+    ALIAS_TRIALS,
+
+    /**
+     * Scores each distinct n-gram of the text once, weighted by how often it occurs: the log of
+     * {@code (weight + p)} is summed up per language, in a single deterministic pass.
+     *
+     * <p>No repeated trials, no random numbers, no repeated normalization, and the results don't depend on the
+     * seed. For long text this is as accurate or more accurate than RANDOM_TRIALS because all of the text is
+     * used, not a sample of it. The probabilities tend to be more extreme (closer to 0 and 1).</p>
+     *
+     * <p>The logs of all known probabilities are computed ahead when the detector is built. That copy takes
+     * about as much heap as the {@link ProbabilityStorage#SPARSE} table, a double per known probability. Not for
+     * a model mapped by the {@link NgramFrequencyDataReader}: then the logs are computed per gram, which is
+     * slower, but the model stays off the heap.</p>
+     */
+    LOG_SPACE
+
+}
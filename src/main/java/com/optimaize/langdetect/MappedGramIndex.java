@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import java.nio.LongBuffer;
+
+/**
+ * A read-only gram index on the sorted codes of a compiled model file, see {@link NgramFrequencyDataReader}.
+ *
+ * <p>The gram id is the position of the code in the sorted list, a lookup is a binary search.
+ * Nothing is copied to the heap.</p>
+ */
+final class MappedGramIndex extends GramIndex {
+
+    private final LongBuffer codes;
+
+    /**
+     * @param codes sorted ascending, without duplicates.
+     */
+    MappedGramIndex(LongBuffer codes) {
+        this.codes = codes;
+    }
+
+    @Override
+    int get(long gramCode) {
+        int low = 0;
+        int high = codes.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midCode = codes.get(mid);
+            if (midCode < gramCode) {
+                low = mid + 1;
+            } else if (midCode > gramCode) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    int size() {
+        return codes.limit();
+    }
+
+    @Override
+    long[] getCodes(int numGrams) {
+        long[] result = new long[numGrams];
+        codes.duplicate().get(result, 0, codes.limit());
+        return result;
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.cybozu.util.Util;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * The same compressed sparse rows as the {@link SparseProbabilityTable}, but read straight from a memory-mapped
+ * compiled model file, see {@link NgramFrequencyDataReader}. Nothing is copied to the heap.
+ */
+final class MappedProbabilityTable extends ProbabilityTable {
+
+    private static final int RESCALE_INTERVAL = 16;
+
+    private final int numLanguages;
+    private final IntBuffer rowStart;
+    private final ShortBuffer languages;
+    private final DoubleBuffer probabilities;
+
+    MappedProbabilityTable(int numLanguages, IntBuffer rowStart, ShortBuffer languages, DoubleBuffer probabilities) {
+        this.numLanguages = numLanguages;
+        this.rowStart = rowStart;
+        this.languages = languages;
+        this.probabilities = probabilities;
+    }
+
+    @Override
+    void set(int gramId, int languagePos, double probability) {
+        throw new UnsupportedOperationException("Read-only!");
+    }
+
+    @Override
+    int getNumGrams() {
+        return rowStart.limit() - 1;
+    }
+
+    @Override
+    int getNumLanguages() {
+        return numLanguages;
+    }
+
+    @Override
+    double getProbability(int gramId, int languagePos) {
+        for (int k = rowStart.get(gramId), to = rowStart.get(gramId + 1); k < to; k++) {
+            if (languages.get(k) == languagePos) return probabilities.get(k);
+        }
+        return 0d;
+    }
+
+    /**
+     * See {@link SparseProbabilityTable#update}, same algorithm.
+     */
+    @Override
+    void update(int gramId, double[] prob, double weight, int count) {
+        int from = rowStart.get(gramId);
+        int to = rowStart.get(gramId + 1);
+        if (weight <= 0d) {
+            updateDense(from, to, prob, weight, count);
+            return;
+        }
+        for (int amount = 0; amount < count; amount++) {
+            for (int k = from; k < to; k++) {
+                prob[languages.get(k)] *= 1d + probabilities.get(k) / weight;
+            }
+            if (amount % RESCALE_INTERVAL == RESCALE_INTERVAL - 1) {
+                Util.normalizeProb(prob);
+            }
+        }
+    }
+
+    private void updateDense(int from, int to, double[] prob, double weight, int count) {
+        int k = from;
+        for (int i = 0; i < prob.length; ++i) {
+            double p = 0d;
+            if (k < to && languages.get(k) == i) {
+                p = probabilities.get(k++);
+            }
+            for (int amount = 0; amount < count; amount++) {
+                prob[i] *= (weight + p);
+            }
+        }
+    }
+
+    @Override
+    void addLogs(int gramId, double[] score, double weight, int count) {
+        int from = rowStart.get(gramId);
+        int to = rowStart.get(gramId + 1);
+        if (weight <= 0d) {
+            int k = from;
+            for (int i = 0; i < score.length; ++i) {
+                double p = 0d;
+                if (k < to && languages.get(k) == i) {
+                    p = probabilities.get(k);
+                    k++;
+                }
+                score[i] += count * Math.log(p);
+            }
+            return;
+        }
+        for (int k = from; k < to; k++) {
+            score[languages.get(k)] += count * Math.log(1d + probabilities.get(k) / weight);
+        }
+    }
+
+    @Override
+    boolean isExact() {
+        return false;
+    }
+
+    @Override
+    boolean isMapped() {
+        return true;
+    }
+
+}
@@ -17,6 +17,7 @@
 package com.optimaize.langdetect;
 
 import com.optimaize.langdetect.i18n.LdLocale;
+import com.optimaize.langdetect.ngram.GramCodes;
 import com.optimaize.langdetect.profiles.LanguageProfile;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -36,67 +37,171 @@ import java.util.*;
 public final class NgramFrequencyData {
 
     /**
-     * Key   = ngram
-     * Value = array with probabilities per loaded language, in the same order as {@code langlist}.
+     * Key   = packed ngram code, see {@link GramCodes}
+     * Value = gram id, the row in {@code table}.
      */
     @NotNull
-    private final Map<String, double[]> wordLangProbMap;
+    private final GramIndex gramIndex;
 
     /**
-     * All the loaded languages, in exactly the same order as the data is in the double[] in wordLangProbMap.
-     * Example: if wordLangProbMap has an entry for the n-gram "foo" then for each locale in this langlist here
+     * Key   = ngram, only for grams longer than {@link GramCodes#MAX_LENGTH} (none with the standard setup).
+     * Value = gram id, the row in {@code table}.
+     */
+    @NotNull
+    private final Map<String, Integer> longGramIndex;
+
+    /**
+     * The probabilities of all grams in all languages, addressed by gram id and language position.
+     */
+    @NotNull
+    private final ProbabilityTable table;
+
+    /**
+     * All the loaded languages, in exactly the same order as the data is in the rows of the table.
+     * Example: if there is a row for the n-gram "foo" then for each locale in this langlist here
      * it has a value there. Languages that don't know the n-gram have the value 0d.
      */
     @NotNull
     private final List<LdLocale> langlist;
 
 
+    /**
+     * Same as {@link #create(Collection, Collection, ProbabilityStorage)} with {@link ProbabilityStorage#DENSE}.
+     */
+    @NotNull
+    public static NgramFrequencyData create(@NotNull Collection<LanguageProfile> languageProfiles, @NotNull Collection<Integer> gramLengths) throws IllegalArgumentException {
+        return create(languageProfiles, gramLengths, ProbabilityStorage.DENSE);
+    }
+
     /**
      * @param gramLengths for example [1,2,3]
      * @throws java.lang.IllegalArgumentException if languageProfiles or gramLengths is empty, or if one of the
      *         languageProfiles does not have the grams of the required sizes.
      */
     @NotNull
-    public static NgramFrequencyData create(@NotNull Collection<LanguageProfile> languageProfiles, @NotNull Collection<Integer> gramLengths) throws IllegalArgumentException {
+    public static NgramFrequencyData create(@NotNull Collection<LanguageProfile> languageProfiles,
+                                            @NotNull Collection<Integer> gramLengths,
+                                            @NotNull ProbabilityStorage storage) throws IllegalArgumentException {
         if (languageProfiles.isEmpty()) throw new IllegalArgumentException("No languageProfiles provided!");
         if (gramLengths.isEmpty()) throw new IllegalArgumentException("No gramLengths provided!");
 
-        Map<String, double[]> wordLangProbMap = new HashMap<>();
+        LongGramIndex gramIndex = new LongGramIndex(1024);
+        Map<String, Integer> longGramIndex = new HashMap<>();
         List<LdLocale> langlist = new ArrayList<>();
         int langsize = languageProfiles.size();
 
-        int index = -1;
+        //step 1: assign a gram id to each distinct gram, and count in how many languages it occurs.
+        int numGrams = 0;
+        int[] rowSizes = new int[1024];
         for (LanguageProfile profile : languageProfiles) {
-            index++;
-
             langlist.add( profile.getLocale() );
 
             for (Integer gramLength : gramLengths) {
                 if (!profile.getGramLengths().contains(gramLength)) {
                     throw new IllegalArgumentException("The language profile for "+profile.getLocale()+" does not contain "+gramLength+"-grams!");
                 }
+                for (Map.Entry<String, Integer> ngramEntry : profile.iterateGrams(gramLength)) {
+                    String ngram = ngramEntry.getKey();
+                    int gramId = gramId(gramIndex, longGramIndex, ngram);
+                    if (gramId == -1) {
+                        gramId = numGrams++;
+                        long code = GramCodes.pack(ngram);
+                        if (code != GramCodes.NONE) {
+                            gramIndex.put(code, gramId);
+                        } else {
+                            longGramIndex.put(ngram, gramId);
+                        }
+                        if (gramId == rowSizes.length) {
+                            rowSizes = Arrays.copyOf(rowSizes, rowSizes.length * 2);
+                        }
+                    }
+                    rowSizes[gramId]++;
+                }
+            }
+        }
+
+        //step 2: fill the table.
+        ProbabilityTable table;
+        switch (storage) {
+            case DENSE:
+                table = new DenseProbabilityTable(numGrams, langsize);
+                break;
+            case SPARSE:
+            case QUANTIZED_16:
+            case QUANTIZED_8:
+                //quantized: made from the exact sparse data, below.
+                table = new SparseProbabilityTable(numGrams, langsize, rowSizes);
+                break;
+            default:
+                throw new UnsupportedOperationException("Unsupported storage: "+storage);
+        }
+        int index = -1;
+        for (LanguageProfile profile : languageProfiles) {
+            index++;
+            for (Integer gramLength : gramLengths) {
                 for (Map.Entry<String, Integer> ngramEntry : profile.iterateGrams(gramLength)) {
                     String ngram      = ngramEntry.getKey();
                     Integer frequency = ngramEntry.getValue();
-                    if (!wordLangProbMap.containsKey(ngram)) {
-                        wordLangProbMap.put(ngram, new double[langsize]);
-                    }
                     double prob = frequency.doubleValue() / profile.getNumGramOccurrences(ngram.length());
-                    wordLangProbMap.get(ngram)[index] = prob;
+                    table.set(gramId(gramIndex, longGramIndex, ngram), index, prob);
                 }
             }
         }
+        table.doneFilling();
+        if (storage == ProbabilityStorage.QUANTIZED_16 || storage == ProbabilityStorage.QUANTIZED_8) {
+            int bits = storage == ProbabilityStorage.QUANTIZED_16 ? 16 : 8;
+            table = QuantizedProbabilityTable.quantize(table, gramLengthsById(gramIndex, longGramIndex, numGrams), bits);
+        }
 
-        return new NgramFrequencyData(wordLangProbMap, langlist);
+        return new NgramFrequencyData(gramIndex, longGramIndex, table, langlist);
     }
 
-    private NgramFrequencyData(@NotNull Map<String, double[]> wordLangProbMap,
-                               @NotNull List<LdLocale> langlist) {
+    /**
+     * Use {@link #create} or the {@link NgramFrequencyDataReader}.
+     */
+    NgramFrequencyData(@NotNull GramIndex gramIndex,
+                       @NotNull Map<String, Integer> longGramIndex,
+                       @NotNull ProbabilityTable table,
+                       @NotNull List<LdLocale> langlist) {
         //not making immutable copies because I create them here (optimization).
-        this.wordLangProbMap = Collections.unmodifiableMap(wordLangProbMap);
+        this.gramIndex = gramIndex;
+        this.longGramIndex = Collections.unmodifiableMap(longGramIndex);
+        this.table = table;
         this.langlist = Collections.unmodifiableList(langlist);
     }
 
+    /**
+     * The same data with a {@link TieredGramIndex} on top of the gram index, sharing the probabilities.
+     * @param frequentChars see {@link TieredGramIndex}
+     */
+    @NotNull
+    NgramFrequencyData withTieredGramIndex(int frequentChars) {
+        return new NgramFrequencyData(new TieredGramIndex(gramIndex, table, frequentChars), longGramIndex, table, langlist);
+    }
+
+    private static int[] gramLengthsById(GramIndex gramIndex, Map<String, Integer> longGramIndex, int numGrams) {
+        int[] gramLengths = new int[numGrams];
+        long[] codes = gramIndex.getCodes(numGrams);
+        for (int gramId = 0; gramId < numGrams; gramId++) {
+            if (codes[gramId] != GramCodes.NONE) {
+                gramLengths[gramId] = GramCodes.length(codes[gramId]);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : longGramIndex.entrySet()) {
+            gramLengths[entry.getValue()] = entry.getKey().length();
+        }
+        return gramLengths;
+    }
+
+    private static int gramId(GramIndex gramIndex, Map<String, Integer> longGramIndex, String ngram) {
+        long code = GramCodes.pack(ngram);
+        if (code != GramCodes.NONE) {
+            return gramIndex.get(code);
+        }
+        Integer gramId = longGramIndex.get(ngram);
+        return gramId == null ? -1 : gramId;
+    }
+
 
     @NotNull
     public List<LdLocale> getLanguageList() {
@@ -108,14 +213,90 @@ public final class NgramFrequencyData {
     }
 
     /**
-     * Don't modify this data structure! (Can't make array immutable...)
+     * @return How many distinct n-grams there are. Gram ids go from 0 to this number (exclusive).
+     */
+    public int getNumGrams() {
+        return table.getNumGrams();
+    }
+
+    /**
+     * @return the gram id (the row in the table), or -1 if no language profile knows that ngram.
+     */
+    public int getGramId(@NotNull String ngram) {
+        return gramId(gramIndex, longGramIndex, ngram);
+    }
+
+    /**
+     * Same as {@link #getGramId(String)} but for a gram packed with {@link GramCodes}, no String needed.
+     * @return the gram id, or -1 if no language profile knows that ngram or if the code is not
+     *         {@link GramCodes#isValid valid}, such as {@link GramCodes#NONE} or 0.
+     */
+    public int getGramId(long gramCode) {
+        //the hash index marks free slots with 0, it must not be asked for that.
+        if (!GramCodes.isValid(gramCode)) return -1;
+        return gramIndex.get(gramCode);
+    }
+
+    /**
+     * Reads a single value without allocating, this is the accessor for loops over many grams or languages.
+     * @param gramId as returned by {@link #getGramId}
+     * @param languagePos position in the {@link #getLanguageList()}
+     * @return 0-1, 0 if the language does not know the gram.
+     */
+    public double getProbability(int gramId, int languagePos) {
+        return table.getProbability(gramId, languagePos);
+    }
+
+    /**
+     * For the hot loops of the detector only.
+     */
+    @NotNull
+    ProbabilityTable getTable() {
+        return table;
+    }
+
+    @NotNull
+    GramIndex getGramIndex() {
+        return gramIndex;
+    }
+
+    /**
+     * @return true if there are grams longer than {@link GramCodes#MAX_LENGTH}, these are not in the {@link #getGramIndex()}.
+     */
+    boolean hasLongGrams() {
+        return !longGramIndex.isEmpty();
+    }
+
+    /**
+     * Convenience method, this allocates a new array on each call: the table does not keep a double[] per gram
+     * to hand out. For many lookups get the {@link #getGramId gram id} once and read the values with
+     * {@link #getProbability(int, int)}, as the detector does.
      * @return null if no language profile knows that ngram.
      *         entries are 0 for languages that don't know that ngram at all.
      *         The array is in the order of the {@link #getLanguageList()} language list, and has exactly that size.
-     *         impl note: this way the caller can handle it more efficient than returning an empty array.
      */
     @Nullable
     public double[] getProbabilities(String ngram) {
-        return wordLangProbMap.get(ngram);
+        return row(getGramId(ngram));
+    }
+
+    /**
+     * Same as {@link #getProbabilities(String)} but for a gram packed with {@link GramCodes}, also a new array
+     * on each call.
+     * @return null if no language profile knows that ngram, or if the code is not valid.
+     */
+    @Nullable
+    public double[] getProbabilities(long gramCode) {
+        return row(getGramId(gramCode));
+    }
+
+    @Nullable
+    private double[] row(int gramId) {
+        if (gramId == -1) return null;
+        double[] row = new double[langlist.size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = table.getProbability(gramId, i);
+        }
+        return row;
     }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Memory-maps a compiled model file written by the {@link NgramFrequencyDataWriter}.
+ *
+ * <p>The returned {@link NgramFrequencyData} serves all lookups straight from the mapping: startup does not parse
+ * anything, the model does not count against the heap, and all JVMs on a host that map the same file share the
+ * same pages of the operating system's page cache.</p>
+ *
+ * <p>The detector makes no heap copy of such a model, so the {@link LongTextAlgorithm#LOG_SPACE} scoring (also
+ * used by segmentation and streaming) computes its logs per gram, see there.</p>
+ *
+ * <p>The scoring works like with {@link ProbabilityStorage#SPARSE}.</p>
+ */
+public class NgramFrequencyDataReader {
+
+    /**
+     * @throws IOException if the file can't be read or is not a compiled model of a supported version.
+     */
+    @NotNull
+    public NgramFrequencyData map(@NotNull File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            //the mapping stays valid after the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            return read(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt compiled model file: "+file, e);
+        }
+    }
+
+    private NgramFrequencyData read(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != NgramFrequencyDataWriter.MAGIC) {
+            throw new IOException("Not a compiled model file!");
+        }
+        int version = buffer.getInt();
+        if (version != NgramFrequencyDataWriter.VERSION) {
+            throw new IOException("Unsupported compiled model version: "+version);
+        }
+        int numLanguages = buffer.getInt();
+        int numGrams = buffer.getInt();
+        int numEntries = buffer.getInt();
+
+        List<LdLocale> langlist = new ArrayList<>(numLanguages);
+        for (int i = 0; i < numLanguages; i++) {
+            byte[] bytes = new byte[buffer.getShort()];
+            buffer.get(bytes);
+            langlist.add(LdLocale.fromString(new String(bytes, StandardCharsets.UTF_8)));
+        }
+        align(buffer);
+        ByteBuffer codes = section(buffer, numGrams * 8L);
+        ByteBuffer rowStart = section(buffer, (numGrams + 1) * 4L);
+        align(buffer);
+        ByteBuffer languages = section(buffer, numEntries * 2L);
+        align(buffer);
+        ByteBuffer probabilities = section(buffer, numEntries * 8L);
+
+        return new NgramFrequencyData(
+                new MappedGramIndex(codes.asLongBuffer()),
+                Collections.emptyMap(),
+                new MappedProbabilityTable(numLanguages, rowStart.asIntBuffer(), languages.asShortBuffer(), probabilities.asDoubleBuffer()),
+                langlist
+        );
+    }
+
+    private static ByteBuffer section(ByteBuffer buffer, long numBytes) {
+        if (numBytes > buffer.remaining()) throw new BufferUnderflowException();
+        ByteBuffer section = buffer.slice();
+        section.limit((int) numBytes);
+        buffer.position(buffer.position() + (int) numBytes);
+        return section;
+    }
+
+    private static void align(ByteBuffer buffer) {
+        buffer.position((buffer.position() + 7) & ~7);
+    }
+
+}
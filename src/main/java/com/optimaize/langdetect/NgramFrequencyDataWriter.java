@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link NgramFrequencyData} to a compiled binary model file that the {@link NgramFrequencyDataReader}
+ * can memory-map.
+ *
+ * <p>File layout, all numbers big-endian, each section starts at a multiple of 8 bytes:</p>
+ * <pre>
+ * int     magic "LDNG", int version
+ * int     numLanguages, int numGrams, int numEntries
+ * numLanguages times: short byteLength, UTF-8 bytes of the locale
+ * long[numGrams]       the packed gram codes (see GramCodes) sorted ascending; the gram id is the position here
+ * int[numGrams+1]      for each gram id the start of its entries, and the end of the last
+ * short[numEntries]    the language positions, ascending per gram
+ * double[numEntries]   the probabilities
+ * </pre>
+ *
+ * <p>Only grams of up to 3 chars can be written (that is what all standard setups use).</p>
+ */
+public class NgramFrequencyDataWriter {
+
+    static final int MAGIC = 0x4C444E47;
+    static final int VERSION = 1;
+
+    /**
+     * @throws IllegalArgumentException if the data has grams longer than 3 chars.
+     */
+    public void write(@NotNull NgramFrequencyData data, @NotNull OutputStream outputStream) throws IOException {
+        if (data.hasLongGrams()) {
+            throw new IllegalArgumentException("Grams longer than 3 chars can't be written to a compiled model!");
+        }
+        int numGrams = data.getNumGrams();
+        int numLanguages = data.getLanguageList().size();
+        long[] codes = data.getGramIndex().getCodes(numGrams);
+        Arrays.sort(codes);
+
+        int[] rowStart = new int[numGrams + 1];
+        for (int i = 0; i < numGrams; i++) {
+            int gramId = data.getGramId(codes[i]);
+            int rowSize = 0;
+            for (int lang = 0; lang < numLanguages; lang++) {
+                if (data.getProbability(gramId, lang) != 0d) rowSize++;
+            }
+            rowStart[i + 1] = rowStart[i] + rowSize;
+        }
+        int numEntries = rowStart[numGrams];
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(numLanguages);
+        out.writeInt(numGrams);
+        out.writeInt(numEntries);
+        for (LdLocale locale : data.getLanguageList()) {
+            byte[] bytes = locale.toString().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+        pad(out);
+        for (long code : codes) {
+            out.writeLong(code);
+        }
+        for (int start : rowStart) {
+            out.writeInt(start);
+        }
+        pad(out);
+        for (long code : codes) {
+            int gramId = data.getGramId(code);
+            for (int lang = 0; lang < numLanguages; lang++) {
+                if (data.getProbability(gramId, lang) != 0d) out.writeShort(lang);
+            }
+        }
+        pad(out);
+        for (long code : codes) {
+            int gramId = data.getGramId(code);
+            for (int lang = 0; lang < numLanguages; lang++) {
+                double p = data.getProbability(gramId, lang);
+                if (p != 0d) out.writeDouble(p);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the compiled model to the file, replacing it if it exists.
+     */
+    public void write(@NotNull NgramFrequencyData data, @NotNull File file) throws IOException {
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            write(data, output);
+        }
+    }
+
+    private static void pad(DataOutputStream out) throws IOException {
+        while (out.size() % 8 != 0) {
+            out.writeByte(0);
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+/**
+ * The values {@code log(1 + p/weight)} of {@link ProbabilityTable#addLogs} computed ahead for one fixed weight,
+ * as compressed sparse rows like in the {@link SparseProbabilityTable}.
+ *
+ * <p>Scoring a gram is then just additions, no Math.log() per gram and language.</p>
+ */
+final class PrecomputedLogTable {
+
+    private final double weight;
+    private final int[] rowStart;
+    private final short[] languages;
+    private final double[] logs;
+
+    /**
+     * @param weight larger than 0.
+     */
+    PrecomputedLogTable(ProbabilityTable table, double weight) {
+        if (!(weight > 0d)) throw new IllegalArgumentException("weight must be larger than 0, but was: "+weight);
+        this.weight = weight;
+        int numGrams = table.getNumGrams();
+        int numLanguages = table.getNumLanguages();
+        this.rowStart = new int[numGrams + 1];
+        for (int g = 0; g < numGrams; g++) {
+            int rowSize = 0;
+            for (int lang = 0; lang < numLanguages; lang++) {
+                if (table.getProbability(g, lang) != 0d) rowSize++;
+            }
+            rowStart[g + 1] = rowStart[g] + rowSize;
+        }
+        this.languages = new short[rowStart[numGrams]];
+        this.logs = new double[rowStart[numGrams]];
+        int k = 0;
+        for (int g = 0; g < numGrams; g++) {
+            for (int lang = 0; lang < numLanguages; lang++) {
+                double p = table.getProbability(g, lang);
+                if (p != 0d) {
+                    languages[k] = (short) lang;
+                    logs[k] = Math.log(1d + p / weight);
+                    k++;
+                }
+            }
+        }
+    }
+
+    double getWeight() {
+        return weight;
+    }
+
+    /**
+     * Same as {@link ProbabilityTable#addLogs} with the weight of this table.
+     */
+    void addLogs(int gramId, double[] score, int count) {
+        for (int k = rowStart[gramId], to = rowStart[gramId + 1]; k < to; k++) {
+            score[languages[k]] += count * logs[k];
+        }
+    }
+
+}
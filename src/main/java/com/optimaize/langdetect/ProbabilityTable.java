@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+/**
+ * The probabilities of all n-grams in all loaded languages, the numbers part of the {@link NgramFrequencyData}.
+ *
+ * <p>Grams are addressed by their gram id 0-n, languages by their position 0-n in the language list.</p>
+ *
+ * <p>Implementations are filled once while the NgramFrequencyData is created, and are immutable afterwards.</p>
+ */
+abstract class ProbabilityTable {
+
+    /**
+     * Only while creating. Must be called in ascending language order per gram.
+     * @param probability 0-1, larger than 0.
+     */
+    abstract void set(int gramId, int languagePos, double probability);
+
+    /**
+     * Only while creating, after the last {@link #set}.
+     */
+    void doneFilling() {
+    }
+
+    abstract int getNumGrams();
+
+    abstract int getNumLanguages();
+
+    /**
+     * @return 0-1, 0 if the language does not know the gram.
+     */
+    abstract double getProbability(int gramId, int languagePos);
+
+    /**
+     * Multiplies each language's probability with {@code (weight + p)}, {@code count} times, where p is the
+     * probability of the gram in that language.
+     *
+     * <p>Implementations may divide all results by a common factor (it does not change the ratios), so the
+     * caller must normalize before reading the values as probabilities. See {@link #isExact()}.</p>
+     *
+     * @param prob one value per language, modified in place.
+     * @param weight the smoothing term that also languages without the gram get.
+     * @param count 1-n
+     */
+    abstract void update(int gramId, double[] prob, double weight, int count);
+
+    /**
+     * Like {@link #update} but only for the given languages, the others are not touched. Always exact.
+     *
+     * <p>For when only a few languages are still possible, then this is cheaper than updating all.</p>
+     *
+     * @param languages the language positions to update.
+     */
+    void update(int gramId, double[] prob, double weight, int count, int[] languages) {
+        for (int lang : languages) {
+            double factor = weight + getProbability(gramId, lang);
+            for (int amount = 0; amount < count; amount++) {
+                prob[lang] *= factor;
+            }
+        }
+    }
+
+    /**
+     * The log-space variant of {@link #update}: adds {@code count * log(1 + p/weight)} to the score of each
+     * language that knows the gram.
+     *
+     * <p>That is {@code count * log(weight + p)} minus the common term {@code count * log(weight)} that all
+     * languages get, so languages that don't know the gram need no update.</p>
+     *
+     * @param score one log value per language, modified in place.
+     * @param weight the smoothing term. If it is 0 then all languages get {@code count * log(p)}, which is
+     *               negative infinity for the languages that don't know the gram.
+     */
+    abstract void addLogs(int gramId, double[] score, double weight, int count);
+
+    /**
+     * @return true if {@link #update} multiplies exactly with {@code (weight + p)}, without any common factor.
+     */
+    abstract boolean isExact();
+
+    /**
+     * @return true if the values are read from a memory-mapped file, not held on the heap. Then no copies of
+     *         them should be made on the heap, see {@link PrecomputedLogTable}.
+     */
+    boolean isMapped() {
+        return false;
+    }
+
+}
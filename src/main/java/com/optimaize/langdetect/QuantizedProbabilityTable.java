@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import java.util.Arrays;
+
+/**
+ * All probabilities like in the {@link DenseProbabilityTable}, but each stored as an 8 or 16 bit code of its
+ * logarithm instead of a 64 bit double.
+ *
+ * <p>The codes are linear in log(p) between the smallest and the largest probability of all grams of the same
+ * length (one scale per gram length, because 1-grams are much more frequent than 3-grams). Code 0 means the
+ * language does not know the gram. A small table per scale turns a code back into the probability, so scoring
+ * needs no Math.exp().</p>
+ *
+ * <p>The relative error of a probability is at most half a step of the scale: with the built-in profiles about
+ * 0.01% for 16 bits and 2% for 8 bits.</p>
+ */
+final class QuantizedProbabilityTable extends ProbabilityTable {
+
+    private final int numLanguages;
+    private final int numGrams;
+    /**
+     * One of these two is used, depending on the number of bits.
+     */
+    private final short[] codes16;
+    private final byte[] codes8;
+    /**
+     * Index = gram id, value = index into decodeTables.
+     */
+    private final byte[] scaleOfGram;
+    /**
+     * [scale][code] = probability. Code 0 is 0d.
+     */
+    private final double[][] decodeTables;
+
+    /**
+     * @param source the exact probabilities.
+     * @param gramLengths index = gram id, value = the length of the gram.
+     * @param bits 8 or 16
+     */
+    static QuantizedProbabilityTable quantize(ProbabilityTable source, int[] gramLengths, int bits) {
+        return new QuantizedProbabilityTable(source, gramLengths, bits);
+    }
+
+    private QuantizedProbabilityTable(ProbabilityTable source, int[] gramLengths, int bits) {
+        if (bits != 8 && bits != 16) throw new IllegalArgumentException("Only 8 or 16 bits are supported, not "+bits);
+        this.numLanguages = source.getNumLanguages();
+        this.numGrams = source.getNumGrams();
+        if ((long) numGrams * numLanguages > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many grams for the matrix: "+numGrams+" grams in "+numLanguages+" languages!");
+        }
+
+        //one scale per gram length:
+        int maxLength = 0;
+        for (int gramLength : gramLengths) maxLength = Math.max(maxLength, gramLength);
+        if (maxLength > Byte.MAX_VALUE) throw new IllegalArgumentException("Grams too long: "+maxLength);
+        double[] minLog = new double[maxLength + 1];
+        double[] maxLog = new double[maxLength + 1];
+        Arrays.fill(minLog, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxLog, Double.NEGATIVE_INFINITY);
+        for (int g = 0; g < numGrams; g++) {
+            for (int lang = 0; lang < numLanguages; lang++) {
+                double p = source.getProbability(g, lang);
+                if (p > 0d) {
+                    double log = Math.log(p);
+                    minLog[gramLengths[g]] = Math.min(minLog[gramLengths[g]], log);
+                    maxLog[gramLengths[g]] = Math.max(maxLog[gramLengths[g]], log);
+                }
+            }
+        }
+
+        int maxCode = (1 << bits) - 1;
+        double[] step = new double[maxLength + 1];
+        this.decodeTables = new double[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++) {
+            double[] decode = new double[maxCode + 1];
+            if (minLog[length] <= maxLog[length]) {
+                step[length] = (maxLog[length] - minLog[length]) / (maxCode - 1);
+                for (int code = 1; code <= maxCode; code++) {
+                    decode[code] = Math.exp(minLog[length] + (code - 1) * step[length]);
+                }
+            }
+            decodeTables[length] = decode;
+        }
+
+        this.scaleOfGram = new byte[numGrams];
+        this.codes16 = bits == 16 ? new short[numGrams * numLanguages] : null;
+        this.codes8 = bits == 8 ? new byte[numGrams * numLanguages] : null;
+        for (int g = 0; g < numGrams; g++) {
+            int length = gramLengths[g];
+            scaleOfGram[g] = (byte) length;
+            for (int lang = 0; lang < numLanguages; lang++) {
+                double p = source.getProbability(g, lang);
+                if (p > 0d) {
+                    int code = 1;
+                    if (step[length] > 0d) {
+                        code += (int) Math.round((Math.log(p) - minLog[length]) / step[length]);
+                    }
+                    if (codes16 != null) {
+                        codes16[g * numLanguages + lang] = (short) code;
+                    } else {
+                        codes8[g * numLanguages + lang] = (byte) code;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    void set(int gramId, int languagePos, double probability) {
+        throw new UnsupportedOperationException("Created by quantize()!");
+    }
+
+    @Override
+    int getNumGrams() {
+        return numGrams;
+    }
+
+    @Override
+    int getNumLanguages() {
+        return numLanguages;
+    }
+
+    private int code(int index) {
+        return codes16 != null ? codes16[index] & 0xFFFF : codes8[index] & 0xFF;
+    }
+
+    @Override
+    double getProbability(int gramId, int languagePos) {
+        return decodeTables[scaleOfGram[gramId]][code(gramId * numLanguages + languagePos)];
+    }
+
+    @Override
+    void update(int gramId, double[] prob, double weight, int count) {
+        double[] decode = decodeTables[scaleOfGram[gramId]];
+        int offset = gramId * numLanguages;
+        if (codes16 != null) {
+            short[] codes = this.codes16;
+            for (int i = 0; i < prob.length; ++i) {
+                double factor = weight + decode[codes[offset + i] & 0xFFFF];
+                for (int amount = 0; amount < count; amount++) {
+                    prob[i] *= factor;
+                }
+            }
+        } else {
+            byte[] codes = this.codes8;
+            for (int i = 0; i < prob.length; ++i) {
+                double factor = weight + decode[codes[offset + i] & 0xFF];
+                for (int amount = 0; amount < count; amount++) {
+                    prob[i] *= factor;
+                }
+            }
+        }
+    }
+
+    @Override
+    void addLogs(int gramId, double[] score, double weight, int count) {
+        for (int i = 0; i < score.length; ++i) {
+            double p = getProbability(gramId, i);
+            if (weight > 0d) {
+                if (p != 0d) score[i] += count * Math.log(1d + p / weight);
+            } else {
+                score[i] += count * Math.log(p);
+            }
+        }
+    }
+
+    @Override
+    boolean isExact() {
+        return true;
+    }
+
+}
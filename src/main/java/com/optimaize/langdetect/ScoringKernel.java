@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.cybozu.util.Util;
+
+/**
+ * The arithmetic over the language dimension that runs for every scored gram: the element-wise update of the
+ * probabilities, and the normalization.
+ *
+ * <p>The plain Java {@link #SCALAR} kernel works everywhere. On Java 17+ the multi-release jar also contains
+ * a kernel that uses the incubating Vector API (SIMD). It is used automatically when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, on the class path as well as on the module path (the Java 17
+ * module descriptor reads the incubator module with {@code requires static}). It can be turned off with the
+ * system property {@code -Dcom.optimaize.langdetect.vectorKernel=false}.</p>
+ *
+ * <p>The vector kernel sums in a different order when normalizing, so the probabilities can differ from the
+ * scalar ones in the last bits.</p>
+ */
+abstract class ScoringKernel {
+
+    static final String VECTOR_KERNEL_PROPERTY = "com.optimaize.langdetect.vectorKernel";
+
+    private static final String VECTOR_KERNEL_CLASS = "com.optimaize.langdetect.VectorScoringKernel";
+
+    static final ScoringKernel SCALAR = new ScoringKernel() {
+        @Override
+        void multiply(double[] prob, double[] matrix, int offset, double weight) {
+            for (int i = 0; i < prob.length; ++i) {
+                prob[i] *= (weight + matrix[offset + i]);
+            }
+        }
+
+        @Override
+        double normalize(double[] prob) {
+            return Util.normalizeProb(prob);
+        }
+
+        @Override
+        public String toString() {
+            return "scalar";
+        }
+    };
+
+    private static final ScoringKernel DEFAULT = select();
+
+    /**
+     * @return the best kernel available in this JVM.
+     */
+    static ScoringKernel get() {
+        return DEFAULT;
+    }
+
+    private static ScoringKernel select() {
+        if (!Boolean.parseBoolean(System.getProperty(VECTOR_KERNEL_PROPERTY, "true"))) {
+            return SCALAR;
+        }
+        try {
+            //only in the Java 17 layer of the jar, and it only links if the incubator module was added.
+            Class<?> kernelClass = Class.forName(VECTOR_KERNEL_CLASS);
+            return (ScoringKernel) kernelClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+
+    /**
+     * {@code prob[i] *= (weight + matrix[offset + i])} for all i of prob.
+     */
+    abstract void multiply(double[] prob, double[] matrix, int offset, double weight);
+
+    /**
+     * Same as {@link Util#normalizeProb}.
+     * @return the maximum of the normalized values.
+     */
+    abstract double normalize(double[] prob);
+
+}
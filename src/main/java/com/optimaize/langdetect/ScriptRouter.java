@@ -0,0 +1,173 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.ngram.GramCodes;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Narrows the languages to score down to the ones written in the scripts of the text.
+ *
+ * <p>Which language uses which script is learned from the 1-grams of the {@link NgramFrequencyData}: a language
+ * uses a script if at least {@link #MIN_SCRIPT_SHARE} of its 1-gram probability mass is in that script. The
+ * few foreign letters that every profile picks up from Wikipedia (Latin in Thai, Cyrillic in Estonian) stay
+ * well below that.</p>
+ *
+ * <p>The text is counted by script like in
+ * {@link com.optimaize.langdetect.text.RemoveMinorityScriptsTextFilter}: COMMON and UNKNOWN are ignored,
+ * INHERITED counts as the script before it. Scripts with less than {@link #MINORITY_THRESHOLD} of the most used
+ * one are ignored too.</p>
+ *
+ * <p>Immutable and thread safe.</p>
+ */
+final class ScriptRouter {
+
+    static final double MIN_SCRIPT_SHARE = 0.1;
+    static final double MINORITY_THRESHOLD = 0.3;
+
+    private static final Character.UnicodeScript[] SCRIPTS = Character.UnicodeScript.values();
+
+    /**
+     * The script ordinal of each char. {@link Character.UnicodeScript#of} is a binary search over all script
+     * ranges, for non-Latin text that cost more than the scoring it saves.
+     * In a holder class so that the 64k are only made if routing is used.
+     */
+    private static final class CharScripts {
+        static final byte[] ORDINALS = new byte[Character.MAX_VALUE + 1];
+        static {
+            assert SCRIPTS.length <= 256;
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                ORDINALS[c] = (byte) Character.UnicodeScript.of(c).ordinal();
+            }
+        }
+    }
+
+    private final int numLanguages;
+    /**
+     * By script ordinal: the language positions in ascending order, null if no language uses the script.
+     */
+    private final int[][] languagesByScript;
+
+    ScriptRouter(@NotNull NgramFrequencyData ngramFrequencyData) {
+        this.numLanguages = ngramFrequencyData.getLanguageList().size();
+        int numGrams = ngramFrequencyData.getNumGrams();
+        long[] codes = ngramFrequencyData.getGramIndex().getCodes(numGrams);
+
+        double[][] mass = new double[SCRIPTS.length][numLanguages];
+        double[] total = new double[numLanguages];
+        for (int gramId = 0; gramId < numGrams; gramId++) {
+            long code = codes[gramId];
+            if (code == GramCodes.NONE || GramCodes.length(code) != 1) continue;
+            int script = Character.UnicodeScript.of(GramCodes.charAt(code, 0)).ordinal();
+            for (int lang = 0; lang < numLanguages; lang++) {
+                double p = ngramFrequencyData.getProbability(gramId, lang);
+                mass[script][lang] += p;
+                total[lang] += p;
+            }
+        }
+
+        this.languagesByScript = new int[SCRIPTS.length][];
+        for (Character.UnicodeScript script : SCRIPTS) {
+            if (!isCounted(script)) continue;
+            int[] languages = new int[numLanguages];
+            int n = 0;
+            for (int lang = 0; lang < numLanguages; lang++) {
+                if (total[lang] > 0d && mass[script.ordinal()][lang] / total[lang] >= MIN_SCRIPT_SHARE) {
+                    languages[n++] = lang;
+                }
+            }
+            if (n > 0) {
+                languagesByScript[script.ordinal()] = Arrays.copyOf(languages, n);
+            }
+        }
+    }
+
+    private static boolean isCounted(Character.UnicodeScript script) {
+        return script != Character.UnicodeScript.COMMON
+                && script != Character.UnicodeScript.INHERITED
+                && script != Character.UnicodeScript.UNKNOWN;
+    }
+
+    /**
+     * @return the language positions in ascending order, not empty. Or null for no restriction: if the text
+     *         has no letters, or if no language uses its scripts.
+     *         The array must not be modified.
+     */
+    @Nullable
+    int[] candidates(@NotNull CharSequence text) {
+        int[] counts = countByScript(text);
+        int most = 0;
+        for (int count : counts) {
+            if (count > most) most = count;
+        }
+        if (most == 0) return null;
+
+        int[] single = null;
+        boolean[] union = null;
+        for (int script = 0; script < counts.length; script++) {
+            int count = counts[script];
+            if (count == 0 || (double) count / most < MINORITY_THRESHOLD) continue;
+            int[] languages = languagesByScript[script];
+            if (languages == null) continue;
+            if (single == null) {
+                single = languages;
+            } else {
+                if (union == null) {
+                    union = new boolean[numLanguages];
+                    for (int lang : single) union[lang] = true;
+                }
+                for (int lang : languages) union[lang] = true;
+            }
+        }
+        if (union == null) return single;
+        int n = 0;
+        for (boolean b : union) if (b) n++;
+        int[] result = new int[n];
+        n = 0;
+        for (int lang = 0; lang < numLanguages; lang++) {
+            if (union[lang]) result[n++] = lang;
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of chars by script ordinal.
+     */
+    private static int[] countByScript(CharSequence text) {
+        byte[] ordinals = CharScripts.ORDINALS;
+        int common = Character.UnicodeScript.COMMON.ordinal();
+        int inherited = Character.UnicodeScript.INHERITED.ordinal();
+        int unknown = Character.UnicodeScript.UNKNOWN.ordinal();
+        int[] counts = new int[SCRIPTS.length];
+        int last = -1;
+        for (int i = 0; i < text.length(); i++) {
+            int script = ordinals[text.charAt(i)] & 0xFF;
+            if (script == inherited) {
+                //counts as what the last was.
+                if (last != -1) counts[last]++;
+            } else if (script != common && script != unknown) {
+                counts[script]++;
+                last = script;
+            }
+            //COMMON and UNKNOWN: don't count it
+        }
+        return counts;
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.cybozu.util.Util;
+
+import java.util.Arrays;
+
+/**
+ * Compressed sparse rows: for each gram only the languages that know it, with their probability.
+ *
+ * <p>The entries of the gram with id g are at positions {@code rowStart[g]} (inclusive) to
+ * {@code rowStart[g+1]} (exclusive) of {@code languages} and {@code probabilities}, sorted by language.</p>
+ *
+ * <p>All other languages share the same smoothing term: in {@link #update} each language is multiplied with
+ * {@code (weight + p)}, and that is just {@code weight} for the languages that don't know the gram. Dividing
+ * everything by {@code weight} does not change the ratios, and leaves a factor of {@code 1 + p/weight} for the
+ * languages that know the gram, and 1 for all others. So only the stored entries need to be touched.</p>
+ */
+final class SparseProbabilityTable extends ProbabilityTable {
+
+    /**
+     * When multiplying a gram in multiple times, the values are rescaled after this many times
+     * to stay far away from overflow: (1 + 1/weight) is at most about 20000 with the default alpha.
+     */
+    private static final int RESCALE_INTERVAL = 16;
+
+    private final int numLanguages;
+    private final int[] rowStart;
+    private final short[] languages;
+    private final double[] probabilities;
+
+    /**
+     * Only used while creating: the next free position per row.
+     */
+    private int[] fillPos;
+
+    /**
+     * @param rowSizes for each gram id the number of languages that know the gram.
+     */
+    SparseProbabilityTable(int numGrams, int numLanguages, int[] rowSizes) {
+        if (numLanguages > Short.MAX_VALUE) throw new IllegalArgumentException("Too many languages: "+numLanguages);
+        this.numLanguages = numLanguages;
+        this.rowStart = new int[numGrams + 1];
+        for (int g = 0; g < numGrams; g++) {
+            rowStart[g + 1] = rowStart[g] + rowSizes[g];
+        }
+        int numEntries = rowStart[numGrams];
+        this.languages = new short[numEntries];
+        this.probabilities = new double[numEntries];
+        this.fillPos = Arrays.copyOf(rowStart, numGrams);
+    }
+
+    @Override
+    void set(int gramId, int languagePos, double probability) {
+        int pos = fillPos[gramId]++;
+        languages[pos] = (short) languagePos;
+        probabilities[pos] = probability;
+    }
+
+    @Override
+    void doneFilling() {
+        fillPos = null;
+    }
+
+    @Override
+    int getNumGrams() {
+        return rowStart.length - 1;
+    }
+
+    @Override
+    int getNumLanguages() {
+        return numLanguages;
+    }
+
+    @Override
+    double getProbability(int gramId, int languagePos) {
+        for (int k = rowStart[gramId]; k < rowStart[gramId + 1]; k++) {
+            if (languages[k] == languagePos) return probabilities[k];
+        }
+        return 0d;
+    }
+
+    @Override
+    void update(int gramId, double[] prob, double weight, int count) {
+        int from = rowStart[gramId];
+        int to = rowStart[gramId + 1];
+        if (weight <= 0d) {
+            //can't divide by the smoothing term, do it the dense way.
+            updateDense(from, to, prob, weight, count);
+            return;
+        }
+        for (int amount = 0; amount < count; amount++) {
+            for (int k = from; k < to; k++) {
+                prob[languages[k]] *= 1d + probabilities[k] / weight;
+            }
+            if (amount % RESCALE_INTERVAL == RESCALE_INTERVAL - 1) {
+                Util.normalizeProb(prob);
+            }
+        }
+    }
+
+    private void updateDense(int from, int to, double[] prob, double weight, int count) {
+        int k = from;
+        for (int i = 0; i < prob.length; ++i) {
+            double p = 0d;
+            if (k < to && languages[k] == i) {
+                p = probabilities[k++];
+            }
+            for (int amount = 0; amount < count; amount++) {
+                prob[i] *= (weight + p);
+            }
+        }
+    }
+
+    @Override
+    void addLogs(int gramId, double[] score, double weight, int count) {
+        int from = rowStart[gramId];
+        int to = rowStart[gramId + 1];
+        if (weight <= 0d) {
+            int k = from;
+            for (int i = 0; i < score.length; ++i) {
+                double p = 0d;
+                if (k < to && languages[k] == i) {
+                    p = probabilities[k];
+                    k++;
+                }
+                score[i] += count * Math.log(p);
+            }
+            return;
+        }
+        for (int k = from; k < to; k++) {
+            score[languages[k]] += count * Math.log(1d + probabilities[k] / weight);
+        }
+    }
+
+    @Override
+    boolean isExact() {
+        return false;
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Detects the language of a text that comes in chunks, without keeping the whole text.
+ *
+ * <p>The chars are normalized like in a {@link com.optimaize.langdetect.text.TextObject} (see
+ * {@link com.optimaize.langdetect.cybozu.util.CharNormalizer}, repeated spaces are collapsed). Other text filters
+ * such as the URL filter are not applied, because they need to see the whole text; filter the chunks before
+ * if needed.</p>
+ *
+ * <p>The current guess can be read at any time. Once the best language reached the stop confidence the
+ * detection is {@link #isDone() done}, further chunks are ignored and the reader is not read any further.</p>
+ *
+ * <p>Get one from {@link LanguageDetector#newStreamingDetector(double)}. Not thread-safe.</p>
+ */
+public interface StreamingDetector {
+
+    /**
+     * Adds the next chunk of the text. Does nothing if already {@link #isDone() done}.
+     */
+    @NotNull
+    StreamingDetector append(@NotNull CharSequence chunk);
+
+    /**
+     * Adds the next chunk of the text. Does nothing if already {@link #isDone() done}.
+     */
+    @NotNull
+    default StreamingDetector append(@NotNull char[] chars, int offset, int length) {
+        return append(CharBuffer.wrap(chars, offset, length));
+    }
+
+    /**
+     * Reads the reader up to the end, or until {@link #isDone() done}. The reader is not closed.
+     */
+    @NotNull
+    default StreamingDetector append(@NotNull Reader reader) throws IOException {
+        char[] buffer = new char[1024];
+        int read;
+        while (!isDone() && (read = reader.read(buffer)) != -1) {
+            append(buffer, 0, read);
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the best language reached the stop confidence, no more text is needed.
+     */
+    boolean isDone();
+
+    /**
+     * @return the number of chars that were used so far, after normalization.
+     */
+    int getLength();
+
+    /**
+     * The current result for the text so far, see {@link LanguageDetector#getProbabilities(CharSequence)}.
+     */
+    @NotNull
+    List<DetectedLanguage> getProbabilities();
+
+    /**
+     * The current result for the text so far, see {@link LanguageDetector#detect(CharSequence)}.
+     */
+    @NotNull
+    Optional<LdLocale> detect();
+
+}
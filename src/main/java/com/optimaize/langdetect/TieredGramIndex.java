@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.ngram.GramCodes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A gram index that answers most lookups with a plain array read, and asks another index for the rest.
+ *
+ * <ul>
+ *   <li>1-grams: an array indexed by the char, it has all of them.</li>
+ *   <li>2-grams of two chars of the hot alphabet: a dense table indexed by the positions of the two chars in the
+ *       alphabet. The hot alphabet is the space, the ASCII letters, and the chars of the 1-grams with the most
+ *       probability summed over all languages.</li>
+ *   <li>All other grams: the wrapped index (a hash or a binary search).</li>
+ * </ul>
+ *
+ * <p>The ids are the same as in the wrapped index. The tables are small enough to stay in the cpu cache, unlike
+ * the hash table of all grams. The 1-gram array has an entry per char up to the largest one, that's up to
+ * 256 KB for profiles with CJK.</p>
+ */
+final class TieredGramIndex extends GramIndex {
+
+    /**
+     * The largest number of frequent chars, the bigram table then is about 4 MB.
+     */
+    static final int MAX_FREQUENT_CHARS = 1000;
+
+    private final GramIndex rest;
+    /**
+     * By char: the gram id of the 1-gram, -1 if unknown.
+     */
+    private final int[] unigrams;
+    /**
+     * By char: the position in the hot alphabet, -1 if not in it.
+     */
+    private final short[] hotPos;
+    private final int numHot;
+    /**
+     * By hot position of the first char times numHot plus hot position of the second: the gram id, -1 if unknown.
+     */
+    private final int[] bigrams;
+
+    /**
+     * @param rest has all grams, the ids are taken from it.
+     * @param frequentChars how many of the most frequent chars go into the hot alphabet, in addition to the
+     *                      space and the ASCII letters. 0 to {@link #MAX_FREQUENT_CHARS}.
+     */
+    TieredGramIndex(GramIndex rest, ProbabilityTable table, int frequentChars) {
+        if (frequentChars < 0 || frequentChars > MAX_FREQUENT_CHARS) {
+            throw new IllegalArgumentException("frequentChars must be 0-"+MAX_FREQUENT_CHARS+", but was: " + frequentChars);
+        }
+        this.rest = rest;
+        int numGrams = table.getNumGrams();
+        long[] codes = rest.getCodes(numGrams);
+
+        //1-grams, and how frequent each char is.
+        int maxChar = -1;
+        double[] mass = new double[Character.MAX_VALUE + 1];
+        for (int gramId = 0; gramId < numGrams; gramId++) {
+            long code = codes[gramId];
+            if (code == GramCodes.NONE || GramCodes.length(code) != 1) continue;
+            char c = GramCodes.charAt(code, 0);
+            maxChar = Math.max(maxChar, c);
+            for (int lang = 0; lang < table.getNumLanguages(); lang++) {
+                mass[c] += table.getProbability(gramId, lang);
+            }
+        }
+        this.unigrams = new int[maxChar + 1];
+        Arrays.fill(unigrams, -1);
+        for (int gramId = 0; gramId < numGrams; gramId++) {
+            long code = codes[gramId];
+            if (code != GramCodes.NONE && GramCodes.length(code) == 1) {
+                unigrams[GramCodes.charAt(code, 0)] = gramId;
+            }
+        }
+
+        //the hot alphabet.
+        boolean[] hot = new boolean[Character.MAX_VALUE + 1];
+        hot[' '] = true;
+        for (char c = 'a'; c <= 'z'; c++) {
+            hot[c] = true;
+            hot[Character.toUpperCase(c)] = true;
+        }
+        List<Integer> byMass = new ArrayList<>();
+        for (int c = 0; c <= maxChar; c++) {
+            if (mass[c] > 0d && !hot[c]) byMass.add(c);
+        }
+        byMass.sort(Comparator.comparingDouble((Integer c) -> mass[c]).reversed());
+        for (int i = 0; i < Math.min(frequentChars, byMass.size()); i++) {
+            hot[byMass.get(i)] = true;
+        }
+        int maxHot = -1;
+        int n = 0;
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (hot[c]) {
+                maxHot = c;
+                n++;
+            }
+        }
+        this.numHot = n;
+        this.hotPos = new short[maxHot + 1];
+        Arrays.fill(hotPos, (short) -1);
+        n = 0;
+        for (int c = 0; c <= maxHot; c++) {
+            if (hot[c]) hotPos[c] = (short) n++;
+        }
+
+        //2-grams of hot chars.
+        this.bigrams = new int[numHot * numHot];
+        Arrays.fill(bigrams, -1);
+        for (int gramId = 0; gramId < numGrams; gramId++) {
+            long code = codes[gramId];
+            if (code == GramCodes.NONE || GramCodes.length(code) != 2) continue;
+            int slot = bigramSlot(GramCodes.charAt(code, 0), GramCodes.charAt(code, 1));
+            if (slot != -1) bigrams[slot] = gramId;
+        }
+    }
+
+    /**
+     * @return the position in the bigram table, -1 if one of the chars is not hot.
+     */
+    private int bigramSlot(char c1, char c2) {
+        if (c1 >= hotPos.length || c2 >= hotPos.length) return -1;
+        int h1 = hotPos[c1];
+        int h2 = hotPos[c2];
+        if (h1 < 0 || h2 < 0) return -1;
+        return h1 * numHot + h2;
+    }
+
+    @Override
+    int get(long gramCode) {
+        switch (GramCodes.length(gramCode)) {
+            case 1: {
+                char c = (char) gramCode;
+                return c < unigrams.length ? unigrams[c] : -1;
+            }
+            case 2: {
+                int slot = bigramSlot((char) (gramCode >>> 16), (char) gramCode);
+                if (slot != -1) return bigrams[slot];
+                return rest.get(gramCode);
+            }
+            default:
+                return rest.get(gramCode);
+        }
+    }
+
+    @Override
+    int size() {
+        return rest.size();
+    }
+
+    @Override
+    long[] getCodes(int numGrams) {
+        return rest.getCodes(numGrams);
+    }
+
+    /**
+     * @return the size of the hot alphabet.
+     */
+    int getNumHot() {
+        return numHot;
+    }
+
+}
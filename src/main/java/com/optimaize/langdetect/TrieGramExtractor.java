@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.ngram.GramCodes;
+import com.optimaize.langdetect.ngram.NgramExtractor;
+import com.optimaize.langdetect.ngram.NgramFilter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Extracts the packed grams of a text like {@link NgramExtractor#extractGrams(CharSequence, com.optimaize.langdetect.ngram.GramConsumer)},
+ * and looks them up in a {@link GramTrie} on the way.
+ *
+ * <p>For each gram length there is a walk in the trie: the node of the gram of that length that ends at the
+ * current position. With the next char, the walk of length n continues from the node of length n-1 of the
+ * previous position. So each gram costs one step in the trie, instead of a hash lookup of the whole gram.
+ * The grams and their order are exactly those of the NgramExtractor.</p>
+ *
+ * <p>Immutable.</p>
+ */
+final class TrieGramExtractor {
+
+    @NotNull
+    private final GramTrie trie;
+    private final int[] gramLengths;
+    private final int maxLength;
+    @Nullable
+    private final NgramFilter filter;
+    @Nullable
+    private final Character textPadding;
+
+    /**
+     * @param extractor must be {@link NgramExtractor#isPackable() packable}.
+     */
+    TrieGramExtractor(@NotNull GramTrie trie, @NotNull NgramExtractor extractor) {
+        if (!extractor.isPackable()) throw new IllegalArgumentException("Gram lengths must be 1-"+GramCodes.MAX_LENGTH+", but are: "+extractor.getGramLengths());
+        this.trie = trie;
+        this.gramLengths = new int[extractor.getGramLengths().size()];
+        int max = 0;
+        for (int i = 0; i < gramLengths.length; i++) {
+            gramLengths[i] = extractor.getGramLengths().get(i);
+            max = Math.max(max, gramLengths[i]);
+        }
+        this.maxLength = max;
+        this.filter = extractor.getFilter();
+        this.textPadding = extractor.getTextPadding();
+    }
+
+    void extractGrams(@NotNull CharSequence text, @NotNull GramIdConsumer consumer) {
+        int len = text.length();
+        if (len == 0) return;
+        //same as NgramExtractor.applyPadding()
+        char pad = (textPadding == null) ? 0 : textPadding;
+        boolean padStart = textPadding != null && text.charAt(0) != pad;
+        boolean padEnd = textPadding != null && text.charAt(len - 1) != pad;
+        int paddedLen = len + (padStart ? 1 : 0) + (padEnd ? 1 : 0);
+        int offset = padStart ? 1 : 0;
+
+        long window = 0;
+        //the nodes of the grams of length 1, 2, 3 that end at the current position, -1 if not in the trie.
+        int node1 = -1, node2 = -1, node3 = -1;
+        for (int pos = 0; pos < paddedLen; pos++) {
+            char c;
+            if ((padStart && pos == 0) || (padEnd && pos == paddedLen - 1)) {
+                c = pad;
+            } else {
+                c = text.charAt(pos - offset);
+            }
+            window = (window << 16) | c;
+            if (maxLength >= 3) node3 = (node2 == -1) ? -1 : trie.child(node2, c);
+            if (maxLength >= 2) node2 = (node1 == -1) ? -1 : trie.child(node1, c);
+            node1 = trie.child(GramTrie.ROOT, c);
+            for (int gramLength : gramLengths) {
+                if (gramLength > pos + 1) continue;
+                long code = GramCodes.packLast(window, gramLength);
+                if (filter == null || filter.use(code)) {
+                    int node = (gramLength == 1) ? node1 : (gramLength == 2) ? node2 : node3;
+                    consumer.accept(code, (node == -1) ? -1 : trie.gramId(node));
+                }
+            }
+        }
+    }
+
+}
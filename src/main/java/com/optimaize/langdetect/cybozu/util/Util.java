@@ -97,6 +97,19 @@ public class Util {
     }
 
 
+    /**
+     * Turns natural log probabilities into normalized probabilities, in place (softmax).
+     * @return maximum of probabilities, or NaN if all were negative infinity.
+     */
+    public static double normalizeLogProb(double[] logProb) {
+        double maxLog = Double.NEGATIVE_INFINITY;
+        for (double l : logProb) if (l > maxLog) maxLog = l;
+        if (maxLog == Double.NEGATIVE_INFINITY) return Double.NaN;
+        for (int i=0;i<logProb.length;++i) logProb[i] = Math.exp(logProb[i] - maxLog);
+        return normalizeProb(logProb);
+    }
+
+
     public static String wordProbToString(double[] prob, List<LdLocale> langlist) {
         Formatter formatter = new Formatter();
         for(int j=0;j<prob.length;++j) {
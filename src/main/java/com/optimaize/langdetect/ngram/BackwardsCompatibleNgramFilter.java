@@ -64,4 +64,24 @@ public class BackwardsCompatibleNgramFilter implements NgramFilter {
         }
     }
 
+    @Override
+    public boolean use(long gramCode) {
+        switch (GramCodes.length(gramCode)) {
+            case 1:
+                return GramCodes.charAt(gramCode, 0) != ' ';
+            case 2:
+                //all upper case
+                return !(Character.isUpperCase(GramCodes.charAt(gramCode, 0)) && Character.isUpperCase(GramCodes.charAt(gramCode, 1)));
+            case 3:
+                if (Character.isUpperCase(GramCodes.charAt(gramCode, 0)) && Character.isUpperCase(GramCodes.charAt(gramCode, 1)) && Character.isUpperCase(GramCodes.charAt(gramCode, 2))) {
+                    //all upper case
+                    return false;
+                }
+                //middle char is a space
+                return GramCodes.charAt(gramCode, 1) != ' ';
+            default:
+                throw new UnsupportedOperationException("Unsupported n-gram length: "+GramCodes.length(gramCode));
+        }
+    }
+
 }
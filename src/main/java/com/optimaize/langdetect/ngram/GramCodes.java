@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.optimaize.langdetect.ngram;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Packs short n-grams into a single primitive long, so that they can be handled without creating Strings.
+ *
+ * <p>Layout: the UTF-16 chars occupy the lower 48 bits, 16 bits each, the first char in the highest position.
+ * The gram length is stored in bits 48-49. Example: "ab" becomes {@code (2L<<48) | ('a'<<16) | 'b'}.</p>
+ *
+ * <p>Because the length is part of the code, a code is never 0 and codes of grams with different lengths
+ * never collide (also not for grams containing the char 0).</p>
+ *
+ * <p>Grams longer than {@link #MAX_LENGTH} can't be packed, {@link #NONE} is returned for them.</p>
+ */
+public final class GramCodes {
+
+    /**
+     * The longest gram that fits into a code.
+     */
+    public static final int MAX_LENGTH = 3;
+
+    /**
+     * Returned for grams that can't be packed. It is not a valid code.
+     */
+    public static final long NONE = -1L;
+
+    private static final int LENGTH_SHIFT = 48;
+    private static final long CHARS_MASK = 0xFFFF_FFFF_FFFFL;
+
+    private GramCodes() {
+    }
+
+    /**
+     * @return the code, or {@link #NONE} if the gram is empty or longer than {@link #MAX_LENGTH}.
+     */
+    public static long pack(@NotNull CharSequence gram) {
+        return pack(gram, 0, gram.length());
+    }
+
+    /**
+     * Packs the gram of the given length that starts at position {@code start} of the text.
+     * @return the code, or {@link #NONE} if length is 0 or longer than {@link #MAX_LENGTH}.
+     */
+    public static long pack(@NotNull CharSequence text, int start, int length) {
+        if (length < 1 || length > MAX_LENGTH) return NONE;
+        long code = 0;
+        for (int i = start; i < start + length; i++) {
+            code = (code << 16) | text.charAt(i);
+        }
+        return ((long) length << LENGTH_SHIFT) | code;
+    }
+
+    public static long pack(char c) {
+        return (1L << LENGTH_SHIFT) | c;
+    }
+
+    public static long pack(char c1, char c2) {
+        return (2L << LENGTH_SHIFT) | ((long) c1 << 16) | c2;
+    }
+
+    public static long pack(char c1, char c2, char c3) {
+        return (3L << LENGTH_SHIFT) | ((long) c1 << 32) | ((long) c2 << 16) | c3;
+    }
+
+    /**
+     * Packs the last chars of a rolling window, where each new char was added with
+     * {@code window = (window << 16) | c}.
+     * @param length 1-{@link #MAX_LENGTH}, not more than the number of chars added to the window.
+     */
+    public static long packLast(long window, int length) {
+        return ((long) length << LENGTH_SHIFT) | (window & ((1L << (length * 16)) - 1));
+    }
+
+    /**
+     * @return 1-{@link #MAX_LENGTH}
+     */
+    public static int length(long code) {
+        return (int) (code >>> LENGTH_SHIFT);
+    }
+
+    /**
+     * @param index 0-based, must be smaller than {@link #length(long)}.
+     */
+    public static char charAt(long code, int index) {
+        int shift = (length(code) - 1 - index) * 16;
+        return (char) ((code & CHARS_MASK) >>> shift);
+    }
+
+    /**
+     * @return true if the code was made by this class (not {@link #NONE}).
+     */
+    public static boolean isValid(long code) {
+        int length = length(code);
+        return length >= 1 && length <= MAX_LENGTH && (code & CHARS_MASK) >>> (length * 16) == 0;
+    }
+
+    /**
+     * Restores the gram. This allocates, it's meant for debugging and for rare fallback paths.
+     */
+    @NotNull
+    public static String toString(long code) {
+        int length = length(code);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = charAt(code, i);
+        }
+        return new String(chars);
+    }
+
+}
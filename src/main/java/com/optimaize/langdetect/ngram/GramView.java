@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect.ngram;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Random access to the n-grams of a text as {@link GramCodes}, without extracting them.
+ *
+ * <p>The grams are numbered like the list of {@link NgramExtractor#extractGrams(CharSequence)}, but before
+ * filtering: first all of the first gram length in text order, then all of the second length, and so on.
+ * A gram is only built when it is asked for, from the chars of the text and the virtual padding, so the
+ * cost does not depend on the text length. The filter is not applied, see {@link #isUsed(int)}.</p>
+ *
+ * <p>Create one with {@link NgramExtractor#newView()}, and {@link #reset} it to each text. It keeps a reference
+ * to the text. Not thread-safe.</p>
+ */
+public final class GramView {
+
+    private final int[] gramLengths;
+    @Nullable
+    private final NgramFilter filter;
+    @Nullable
+    private final Character textPadding;
+
+    private CharSequence text = "";
+    private boolean padStart;
+    private int paddedLen;
+    /**
+     * The index of the first gram of each gram length, plus the size at the end.
+     */
+    private final int[] start;
+
+    GramView(@NotNull int[] gramLengths, @Nullable NgramFilter filter, @Nullable Character textPadding) {
+        this.gramLengths = gramLengths;
+        this.filter = filter;
+        this.textPadding = textPadding;
+        this.start = new int[gramLengths.length + 1];
+    }
+
+    /**
+     * Switches to the given text.
+     * @return this
+     */
+    @NotNull
+    public GramView reset(@NotNull CharSequence text) {
+        this.text = text;
+        int len = text.length();
+        //same as NgramExtractor.applyPadding()
+        padStart = len > 0 && textPadding != null && text.charAt(0) != textPadding;
+        boolean padEnd = len > 0 && textPadding != null && text.charAt(len - 1) != textPadding;
+        paddedLen = len + (padStart ? 1 : 0) + (padEnd ? 1 : 0);
+        int size = 0;
+        for (int i = 0; i < gramLengths.length; i++) {
+            start[i] = size;
+            size += Math.max(paddedLen - gramLengths[i] + 1, 0);
+        }
+        start[gramLengths.length] = size;
+        return this;
+    }
+
+    /**
+     * @return the number of grams, including the ones that the filter rejects.
+     */
+    public int size() {
+        return start[gramLengths.length];
+    }
+
+    /**
+     * @param index 0 to size-1
+     */
+    public long code(int index) {
+        int i = 0;
+        while (index >= start[i + 1]) i++;
+        int length = gramLengths[i];
+        int pos = index - start[i];
+        long code = 0;
+        for (int p = pos; p < pos + length; p++) {
+            code = (code << 16) | charAt(p);
+        }
+        return GramCodes.packLast(code, length);
+    }
+
+    /**
+     * @param pos in the padded text.
+     */
+    private char charAt(int pos) {
+        if (padStart && pos == 0) return textPadding;
+        int i = pos - (padStart ? 1 : 0);
+        if (i == text.length()) return textPadding; //the end padding
+        return text.charAt(i);
+    }
+
+    /**
+     * @return true if the filter accepts the gram, always true without a filter.
+     */
+    public boolean isUsed(int index) {
+        return filter == null || filter.use(code(index));
+    }
+
+    /**
+     * @return true if no gram is accepted by the filter.
+     *         Looks only until the first that is, usually that's the first gram.
+     */
+    public boolean isEmpty() {
+        int size = size();
+        for (int index = 0; index < size; index++) {
+            if (isUsed(index)) return false;
+        }
+        return true;
+    }
+
+}
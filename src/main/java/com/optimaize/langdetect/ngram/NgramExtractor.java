@@ -41,6 +41,11 @@ public class NgramExtractor {
     private final NgramFilter filter;
     @Nullable
     private final Character textPadding;
+    /**
+     * The gram lengths for {@link #extractGrams(CharSequence, GramConsumer)}, null if one can't be packed.
+     */
+    @Nullable
+    private final int[] packableGramLengths;
 
     public static NgramExtractor gramLength(int gramLength) {
         return new NgramExtractor(List.of(gramLength), null, null);
@@ -72,12 +77,39 @@ public class NgramExtractor {
         this.gramLengths = List.copyOf(gramLengths);
         this.filter = filter;
         this.textPadding = textPadding;
+        this.packableGramLengths = packableGramLengths(this.gramLengths);
+    }
+
+    @Nullable
+    private static int[] packableGramLengths(List<Integer> gramLengths) {
+        int[] lengths = new int[gramLengths.size()];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = gramLengths.get(i);
+            if (lengths[i] < 1 || lengths[i] > GramCodes.MAX_LENGTH) return null;
+        }
+        return lengths;
     }
 
     public List<Integer> getGramLengths() {
         return gramLengths;
     }
 
+    /**
+     * @return null if none, see {@link #filter(NgramFilter)}.
+     */
+    @Nullable
+    public NgramFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * @return the padding character, null if none, see {@link #textPadding(char)}.
+     */
+    @Nullable
+    public Character getTextPadding() {
+        return textPadding;
+    }
+
     /**
      * Creates the n-grams for a given text in the order they occur.
      *
@@ -103,7 +135,23 @@ public class NgramExtractor {
             return Collections.emptyList();
         }
         List<String> grams = new ArrayList<>(totalNumGrams);
+        _extract(text, len, grams);
+        return grams;
+    }
 
+    /**
+     * Same as {@link #extractGrams(CharSequence)}, but adds the grams to the given list.
+     *
+     * <p>This lets the caller reuse the list for many texts.</p>
+     *
+     * @param grams The grams are appended, existing content is kept.
+     */
+    public void extractGrams(@NotNull CharSequence text, @NotNull List<String> grams) {
+        text = applyPadding(text);
+        _extract(text, text.length(), grams);
+    }
+
+    private void _extract(CharSequence text, int len, List<String> grams) {
         for (Integer gramLength : gramLengths) {
             int numGrams = len - (gramLength -1);
             if (numGrams >= 1) { //yes can be negative
@@ -115,7 +163,74 @@ public class NgramExtractor {
                 }
             }
         }
-        return grams;
+    }
+
+    /**
+     * @return true if all gram lengths fit into {@link GramCodes}, so that
+     *         {@link #extractGrams(CharSequence, GramConsumer)} can be used.
+     */
+    public boolean isPackable() {
+        return packableGramLengths != null;
+    }
+
+    /**
+     * Passes the n-grams of the text to the consumer as {@link GramCodes}, without creating Strings or
+     * copying the text.
+     *
+     * <p>It's one pass over the text for all gram lengths: at each position the grams that end there are passed,
+     * in the order of the gram lengths. So the grams are the same as with {@link #extractGrams(CharSequence)},
+     * but the order differs, that one goes through the text once per length. The padding is not added to a copy
+     * of the text, the chars are just passed as if they were there.</p>
+     *
+     * <p>The filter is asked with {@link NgramFilter#use(long)}.</p>
+     *
+     * @throws UnsupportedOperationException if not {@link #isPackable()}.
+     */
+    public void extractGrams(@NotNull CharSequence text, @NotNull GramConsumer consumer) {
+        int[] lengths = packableGramLengths;
+        if (lengths == null) {
+            throw new UnsupportedOperationException("Gram lengths must be 1-"+GramCodes.MAX_LENGTH+" for packed grams, but are: "+gramLengths);
+        }
+        int len = text.length();
+        if (len == 0) return;
+        //same as applyPadding()
+        char pad = (textPadding == null) ? 0 : textPadding;
+        boolean padStart = textPadding != null && text.charAt(0) != pad;
+        boolean padEnd = textPadding != null && text.charAt(len - 1) != pad;
+        int paddedLen = len + (padStart ? 1 : 0) + (padEnd ? 1 : 0);
+        int offset = padStart ? 1 : 0;
+
+        long window = 0;
+        for (int pos = 0; pos < paddedLen; pos++) {
+            char c;
+            if ((padStart && pos == 0) || (padEnd && pos == paddedLen - 1)) {
+                c = pad;
+            } else {
+                c = text.charAt(pos - offset);
+            }
+            window = (window << 16) | c;
+            for (int gramLength : lengths) {
+                if (gramLength > pos + 1) continue;
+                long code = GramCodes.packLast(window, gramLength);
+                if (filter == null || filter.use(code)) {
+                    consumer.accept(code);
+                }
+            }
+        }
+    }
+
+    /**
+     * For reading single grams of a text without extracting all, for example to sample some randomly.
+     *
+     * @return a new view, {@link GramView#reset reset} it to the text.
+     * @throws UnsupportedOperationException if not {@link #isPackable()}.
+     */
+    @NotNull
+    public GramView newView() {
+        if (packableGramLengths == null) {
+            throw new UnsupportedOperationException("Gram lengths must be 1-"+GramCodes.MAX_LENGTH+" for packed grams, but are: "+gramLengths);
+        }
+        return new GramView(packableGramLengths, filter, textPadding);
     }
 
     /**
@@ -140,6 +255,46 @@ public class NgramExtractor {
         return grams;
     }
 
+    /**
+     * Same as {@link #extractCountedGrams(CharSequence)}, but counts into the given map.
+     *
+     * <p>This lets the caller reuse the map for many texts. For the documented order the map must keep the
+     * insertion order, like a {@link LinkedHashMap}.</p>
+     *
+     * @param grams Counts are added to the existing content.
+     */
+    public void extractCountedGrams(@NotNull CharSequence text, @NotNull Map<String,Integer> grams) {
+        text = applyPadding(text);
+        int len = text.length();
+        for (Integer gramLength : gramLengths) {
+            _extractCounted(text, gramLength, len, grams);
+        }
+    }
+
+
+    /**
+     * Counts the grams of the text that end at position {@code from} or later, the ones before were
+     * counted already.
+     *
+     * <p>This is for text that comes in pieces: the caller keeps the last chars of the previous piece in front
+     * of the new one. No padding is applied, the caller has to add it at the start and at the end.</p>
+     *
+     * @param from 0-length
+     * @param grams Counts are added to the existing content.
+     */
+    public void extractCountedGramsFrom(@NotNull CharSequence text, int from, @NotNull Map<String,Integer> grams) {
+        int len = text.length();
+        for (Integer gramLength : gramLengths) {
+            int endPos = len - (gramLength -1);
+            for (int pos=Math.max(0, from - (gramLength -1)); pos<endPos; pos++) {
+                String gram = text.subSequence(pos, pos + gramLength).toString();
+                if (filter==null || filter.use(gram)) {
+                    grams.merge(gram, 1, Integer::sum);
+                }
+            }
+        }
+    }
+
 
     private void _extractCounted(CharSequence text, int gramLength, int len, Map<String, Integer> grams) {
         int endPos = len - (gramLength -1);
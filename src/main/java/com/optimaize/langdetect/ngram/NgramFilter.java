@@ -27,4 +27,14 @@ public interface NgramFilter {
 
     boolean use(String ngram);
 
+    /**
+     * The same for a gram packed with {@link GramCodes}.
+     *
+     * <p>The default implementation restores the String, implementations should override it to check the
+     * chars of the code directly.</p>
+     */
+    default boolean use(long gramCode) {
+        return use(GramCodes.toString(gramCode));
+    }
+
 }
@@ -62,4 +62,19 @@ public class StandardNgramFilter implements NgramFilter {
         }
     }
 
+    @Override
+    public boolean use(long gramCode) {
+        switch (GramCodes.length(gramCode)) {
+            case 1:
+                return GramCodes.charAt(gramCode, 0) != ' ';
+            case 2:
+                return true;
+            case 3:
+                //middle char is a space
+                return GramCodes.charAt(gramCode, 1) != ' ';
+            default:
+                throw new UnsupportedOperationException("Unsupported n-gram length: "+GramCodes.length(gramCode));
+        }
+    }
+
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link ScoringKernel} on the Vector API, processes as many languages per instruction as the CPU has lanes
+ * (4 doubles for AVX2, 8 for AVX-512).
+ *
+ * <p>Only in the Java 17 layer of the multi-release jar. Loaded by reflection from {@link ScoringKernel#get()}.</p>
+ */
+final class VectorScoringKernel extends ScoringKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    void multiply(double[] prob, double[] matrix, int offset, double weight) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(prob.length); i < bound; i += SPECIES.length()) {
+            DoubleVector p = DoubleVector.fromArray(SPECIES, prob, i);
+            DoubleVector m = DoubleVector.fromArray(SPECIES, matrix, offset + i);
+            p.mul(m.add(weight)).intoArray(prob, i);
+        }
+        for (; i < prob.length; ++i) {
+            prob[i] *= (weight + matrix[offset + i]);
+        }
+    }
+
+    @Override
+    double normalize(double[] prob) {
+        int bound = SPECIES.loopBound(prob.length);
+        DoubleVector sums = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            sums = sums.add(DoubleVector.fromArray(SPECIES, prob, i));
+        }
+        double sump = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < prob.length; ++i) {
+            sump += prob[i];
+        }
+
+        DoubleVector maxs = DoubleVector.zero(SPECIES);
+        i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector p = DoubleVector.fromArray(SPECIES, prob, i).div(sump);
+            maxs = maxs.max(p);
+            p.intoArray(prob, i);
+        }
+        double maxp = maxs.reduceLanes(VectorOperators.MAX);
+        for (; i < prob.length; ++i) {
+            double p = prob[i] / sump;
+            if (maxp < p) maxp = p;
+            prob[i] = p;
+        }
+        return maxp;
+    }
+
+    @Override
+    public String toString() {
+        return "vector(" + SPECIES + ")";
+    }
+
+}
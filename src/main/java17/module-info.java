@@ -0,0 +1,15 @@
+module com.optimaize.langdetector {
+    requires org.jetbrains.annotations;
+    //only read when the JVM was started with --add-modules jdk.incubator.vector, see ScoringKernel.
+    requires static jdk.incubator.vector;
+
+    exports com.optimaize.langdetect;
+    exports com.optimaize.langdetect.frma;
+    exports com.optimaize.langdetect.i18n;
+    exports com.optimaize.langdetect.ngram;
+    exports com.optimaize.langdetect.profiles;
+    exports com.optimaize.langdetect.text;
+
+    opens languages;
+    opens languages.shorttext;
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executor of the {@link AsyncLanguageDetector}.
+ *
+ * <p>This is the Java 21 version from the multi-release jar: a new virtual thread per task.</p>
+ */
+final class DetectionExecutors {
+
+    private DetectionExecutors() {
+    }
+
+    /**
+     * Not bounded, the caller limits the number of tasks.
+     */
+    static ExecutorService newExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("language-detector-", 1).factory());
+    }
+
+}
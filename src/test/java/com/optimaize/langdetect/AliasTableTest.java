@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AliasTableTest {
+
+    /**
+     * Each column and point is drawn with the same chance, so counting the results of all of them gives the
+     * exact chances.
+     */
+    @Test
+    public void exactChances() {
+        AliasTable table = new AliasTable();
+        int[][] weightsList = {{1}, {5}, {1, 2, 3, 4}, {7, 1, 1, 1}, {3, 3, 3}, {1, 100, 1, 1, 2, 50}};
+        for (int[] weights : weightsList) {
+            table.build(weights, weights.length);
+            int total = 0;
+            for (int weight : weights) total += weight;
+            int[] drawn = new int[weights.length];
+            for (int column = 0; column < weights.length; column++) {
+                for (int point = 0; point < total; point++) {
+                    drawn[table.get(column, point)]++;
+                }
+            }
+            int[] expected = new int[weights.length];
+            for (int i = 0; i < weights.length; i++) expected[i] = weights[i] * weights.length;
+            assertArrayEquals(expected, drawn);
+        }
+    }
+
+    @Test
+    public void reusedWithFewerWeights() {
+        AliasTable table = new AliasTable();
+        table.build(new int[]{1, 2, 3, 4, 5, 6}, 6);
+        table.build(new int[]{1, 3, 99, 99}, 2);
+        assertEquals(2, table.size());
+        Random rand = new Random(42);
+        int[] drawn = new int[2];
+        for (int i = 0; i < 4000; i++) {
+            drawn[table.draw(rand)]++;
+        }
+        assertTrue(drawn[1] > 2 * drawn[0]);
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import com.optimaize.langdetect.ngram.NgramExtractors;
+import com.optimaize.langdetect.profiles.LanguageProfileReader;
+import com.optimaize.langdetect.text.CommonTextObjectFactories;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.testng.Assert.*;
+
+public class AsyncLanguageDetectorTest {
+
+    private final LanguageDetector detector;
+    private final CharSequence text = CommonTextObjectFactories.forDetectingShortCleanText().forText("Dies ist eine deutsche Text");
+
+    public AsyncLanguageDetectorTest() throws IOException {
+        detector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(50)
+                .withProfiles(new LanguageProfileReader().readAllBuiltIn())
+                .build();
+    }
+
+    @Test
+    public void sameResults() throws Exception {
+        try (AsyncLanguageDetector async = new AsyncLanguageDetector(detector, 100)) {
+            CompletableFuture<Optional<LdLocale>> detected = async.detect(text);
+            CompletableFuture<List<DetectedLanguage>> probabilities = async.getProbabilities(text);
+            assertEquals(detected.get(), detector.detect(text));
+            assertEquals(probabilities.get().toString(), detector.getProbabilities(text).toString());
+        }
+    }
+
+    @Test
+    public void rejectsWhenTooManyPending() throws Exception {
+        List<Runnable> queue = new ArrayList<>();
+        AsyncLanguageDetector async = new AsyncLanguageDetector(detector, queue::add, 2);
+        CompletableFuture<Optional<LdLocale>> first = async.detect(text);
+        CompletableFuture<Optional<LdLocale>> second = async.detect(text);
+        CompletableFuture<Optional<LdLocale>> third = async.detect(text);
+        assertEquals(async.getPending(), 2);
+        assertTrue(third.isCompletedExceptionally());
+        try {
+            third.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+
+        //run what was queued, then there is room again:
+        queue.forEach(Runnable::run);
+        assertEquals(async.getPending(), 0);
+        assertEquals(first.get(), detector.detect(text));
+        assertEquals(second.get(), detector.detect(text));
+        assertFalse(async.detect(text).isCompletedExceptionally());
+    }
+
+}
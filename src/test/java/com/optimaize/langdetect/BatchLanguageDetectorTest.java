@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import com.optimaize.langdetect.ngram.NgramExtractors;
+import com.optimaize.langdetect.profiles.LanguageProfileReader;
+import com.optimaize.langdetect.text.CommonTextObjectFactories;
+import com.optimaize.langdetect.text.TextObjectFactory;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.*;
+
+/**
+ * The batch results must be the same as one call after the other, in the same order.
+ */
+public class BatchLanguageDetectorTest {
+
+    private final LanguageDetector detector;
+    private final List<CharSequence> texts = new ArrayList<>();
+
+    public BatchLanguageDetectorTest() throws IOException {
+        detector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(50)
+                .withProfiles(new LanguageProfileReader().readAllBuiltIn())
+                .build();
+
+        TextObjectFactory textObjectFactory = CommonTextObjectFactories.forDetectingShortCleanText();
+        List<String> strings = List.of(
+                "This is some English text.",
+                "Ceci est un texte français.",
+                "Dit is een Nederlandse tekst.",
+                "Dies ist eine deutsche Text",
+                "Europa не трябва да стартира нов конкурентен маратон",
+                "Dies ist ein etwas längerer deutscher Text, der nicht mehr als kurzer Text durchgeht.",
+                "...",
+                ""
+        );
+        for (int i = 0; i < 200; i++) {
+            //many duplicates, as separate objects:
+            texts.add(textObjectFactory.forText(strings.get((i * 7) % strings.size()) + (i % 3 == 0 ? "" : " " + (i % 5))));
+        }
+    }
+
+    @Test
+    public void detectAll() {
+        List<Optional<LdLocale>> results = new BatchLanguageDetector(detector).detectAll(texts);
+        assertEquals(results.size(), texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals(results.get(i), detector.detect(texts.get(i)));
+        }
+    }
+
+    @Test
+    public void getProbabilitiesAll() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            List<List<DetectedLanguage>> results = new BatchLanguageDetector(detector, pool).getProbabilitiesAll(texts);
+            assertEquals(results.size(), texts.size());
+            for (int i = 0; i < texts.size(); i++) {
+                assertEquals(results.get(i).toString(), detector.getProbabilities(texts.get(i)).toString());
+            }
+            //equal texts must not share the list:
+            assertNotSame(results.get(0), results.get(24));
+            assertEquals(results.get(0).toString(), results.get(24).toString());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void empty() {
+        assertTrue(new BatchLanguageDetector(detector).detectAll(List.of()).isEmpty());
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import com.optimaize.langdetect.ngram.NgramExtractors;
+import com.optimaize.langdetect.profiles.LanguageProfileReader;
+import com.optimaize.langdetect.text.CommonTextObjectFactories;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.testng.Assert.*;
+
+public class CachingLanguageDetectorTest {
+
+    @Test
+    public void sameResultsAsUncached() throws IOException {
+        LanguageDetector detector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .withProfiles(new LanguageProfileReader().readAllBuiltIn())
+                .build();
+        CachingLanguageDetector cache = new CachingLanguageDetector(detector, 100);
+        List<CharSequence> texts = new ArrayList<>();
+        for (String text : List.of("This is some English text.", "Ceci est un texte français.", "Dit is een Nederlandse tekst.",
+                "Dies ist eine deutsche Text", "Questo è un testo italiano.", "Este es un texto en español.", "12345")) {
+            texts.add(CommonTextObjectFactories.forDetectingShortCleanText().forText(text));
+        }
+        for (int round = 0; round < 3; round++) {
+            for (CharSequence text : texts) {
+                assertEquals(cache.getProbabilities(text).toString(), detector.getProbabilities(text).toString());
+                assertEquals(cache.detect(text), detector.detect(text));
+            }
+        }
+        assertEquals(cache.getMissCount(), 2 * texts.size());
+        assertEquals(cache.getHitCount(), 2 * 2 * texts.size());
+        assertEquals(cache.getEvictionCount(), 0);
+        assertEquals(cache.size(), texts.size());
+    }
+
+    @Test
+    public void returnsCopies() {
+        CountingDetector counting = new CountingDetector();
+        CachingLanguageDetector cache = new CachingLanguageDetector(counting, 10);
+        cache.getProbabilities("abc").clear();
+        assertEquals(cache.getProbabilities("abc").size(), 1);
+        assertEquals(counting.calls, 1);
+    }
+
+    @Test
+    public void frequentTextsStay() {
+        CountingDetector counting = new CountingDetector();
+        CachingLanguageDetector cache = new CachingLanguageDetector(counting, 2, 1);
+        for (int i = 0; i < 5; i++) {
+            cache.getProbabilities("a");
+            cache.getProbabilities("b");
+        }
+        assertEquals(counting.calls, 2);
+
+        //one-time texts don't get in:
+        for (int i = 0; i < 100; i++) {
+            cache.getProbabilities("once " + i);
+        }
+        assertEquals(cache.getEvictionCount(), 0);
+        assertEquals(cache.size(), 2);
+        cache.getProbabilities("a");
+        cache.getProbabilities("b");
+        assertEquals(counting.calls, 102);
+
+        //a text that comes more often replaces the least recently used:
+        for (int i = 0; i < 10; i++) {
+            cache.getProbabilities("c");
+        }
+        assertEquals(cache.getEvictionCount(), 1);
+        int calls = counting.calls;
+        cache.getProbabilities("c");
+        cache.getProbabilities("b");
+        assertEquals(counting.calls, calls);
+        cache.getProbabilities("a");
+        assertEquals(counting.calls, calls + 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void zeroEntries() {
+        new CachingLanguageDetector(new CountingDetector(), 0);
+    }
+
+    private static class CountingDetector implements LanguageDetector {
+        private int calls;
+
+        @Override
+        public Optional<LdLocale> detect(CharSequence text) {
+            calls++;
+            return Optional.of(LdLocale.fromString("en"));
+        }
+
+        @Override
+        public List<DetectedLanguage> getProbabilities(CharSequence text) {
+            calls++;
+            List<DetectedLanguage> list = new ArrayList<>();
+            list.add(new DetectedLanguage(LdLocale.fromString("en"), 1d));
+            return list;
+        }
+    }
+
+}
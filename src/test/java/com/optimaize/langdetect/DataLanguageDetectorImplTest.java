@@ -42,6 +42,17 @@ public class DataLanguageDetectorImplTest {
 
     private final LanguageDetector shortDetector;
     private final LanguageDetector longDetector;
+    private final LanguageDetector sparseShortDetector;
+    private final LanguageDetector sparseLongDetector;
+    private final LanguageDetector logSpaceDetector;
+    private final LanguageDetector adaptiveTrialsDetector;
+    private final LanguageDetector sampledTrialsDetector;
+    private final LanguageDetector aliasTrialsDetector;
+    private final LanguageDetector skipUnknownGramsDetector;
+    private final LanguageDetector tieredIndexDetector;
+    private final LanguageDetector trieShortDetector;
+    private final LanguageDetector trieLongDetector;
+    private final LanguageDetector trieSkipUnknownGramsDetector;
 
     public DataLanguageDetectorImplTest() throws IOException {
         List<LanguageProfile> languageProfiles = new LanguageProfileReader().readAllBuiltIn();
@@ -55,6 +66,74 @@ public class DataLanguageDetectorImplTest {
                 .shortTextAlgorithm(0)
                 .withProfiles(new LanguageProfileReader().readAllBuiltIn())
                 .build();
+
+        sparseShortDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(100)
+                .probabilityStorage(ProbabilityStorage.SPARSE)
+                .withProfiles(languageProfiles)
+                .build();
+
+        sparseLongDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(0)
+                .probabilityStorage(ProbabilityStorage.SPARSE)
+                .withProfiles(languageProfiles)
+                .build();
+
+        logSpaceDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(0)
+                .longTextAlgorithm(LongTextAlgorithm.LOG_SPACE)
+                .probabilityStorage(ProbabilityStorage.SPARSE)
+                .withProfiles(languageProfiles)
+                .build();
+
+        adaptiveTrialsDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(0)
+                .trialStopMargin(0.5)
+                .withProfiles(languageProfiles)
+                .build();
+
+        sampledTrialsDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(0)
+                .longTextAlgorithm(LongTextAlgorithm.SAMPLED_TRIALS)
+                .withProfiles(languageProfiles)
+                .build();
+
+        aliasTrialsDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(0)
+                .longTextAlgorithm(LongTextAlgorithm.ALIAS_TRIALS)
+                .withProfiles(languageProfiles)
+                .build();
+
+        skipUnknownGramsDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(0)
+                .skipUnknownGrams(true)
+                .withProfiles(languageProfiles)
+                .build();
+
+        tieredIndexDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(100)
+                .tieredGramIndex(64)
+                .withProfiles(languageProfiles)
+                .build();
+
+        trieShortDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(100)
+                .trieExtraction(true)
+                .withProfiles(languageProfiles)
+                .build();
+
+        trieLongDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(0)
+                .trieExtraction(true)
+                .withProfiles(languageProfiles)
+                .build();
+
+        trieSkipUnknownGramsDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(0)
+                .skipUnknownGrams(true)
+                .trieExtraction(true)
+                .withProfiles(languageProfiles)
+                .build();
     }
 
     @Test(dataProvider = "shortCleanTexts")
@@ -75,6 +154,123 @@ public class DataLanguageDetectorImplTest {
         assertEquals(longDetector.detect(text).get().getLanguage(), expectedLanguage);
     }
 
+    @Test(dataProvider = "shortCleanTexts")
+    public void tieredIndexShortText(String expectedLanguage, CharSequence text) throws IOException {
+        assertSameResult(tieredIndexDetector.getProbabilities(text), shortDetector.getProbabilities(text));
+    }
+
+    @Test(dataProvider = "shortCleanTexts")
+    public void trieExtractionShortText(String expectedLanguage, CharSequence text) throws IOException {
+        assertSameResult(trieShortDetector.getProbabilities(text), shortDetector.getProbabilities(text));
+        assertSameAsSession(trieShortDetector, text);
+    }
+
+    @Test(dataProvider = "longerWikipediaTexts")
+    public void trieExtractionLongText(String expectedLanguage, CharSequence text) throws IOException {
+        assertSameResult(trieLongDetector.getProbabilities(text), longDetector.getProbabilities(text));
+        assertSameAsSession(trieLongDetector, text);
+        assertSameResult(trieSkipUnknownGramsDetector.getProbabilities(text), skipUnknownGramsDetector.getProbabilities(text));
+        assertSameAsSession(trieSkipUnknownGramsDetector, text);
+    }
+
+    @Test(dataProvider = "shortCleanTexts")
+    public void sparseStorageShortText(String expectedLanguage, CharSequence text) throws IOException {
+        assertSameResult(sparseShortDetector.getProbabilities(text), shortDetector.getProbabilities(text));
+        assertSameResult(sparseLongDetector.getProbabilities(text), longDetector.getProbabilities(text));
+    }
+
+    @Test(dataProvider = "longerWikipediaTexts")
+    public void sparseStorageLongText(String expectedLanguage, CharSequence text) throws IOException {
+        assertSameResult(sparseLongDetector.getProbabilities(text), longDetector.getProbabilities(text));
+        assertEquals(sparseLongDetector.detect(text).get().getLanguage(), expectedLanguage);
+    }
+
+    @Test(dataProvider = "shortCleanTexts")
+    public void logSpaceAlgoWorkingOnShortText(String expectedLanguage, CharSequence text) throws IOException {
+        assertEquals(logSpaceDetector.getProbabilities(text).get(0).getLocale().getLanguage(), expectedLanguage);
+    }
+
+    @Test(dataProvider = "longerWikipediaTexts")
+    public void logSpaceAlgoWorkingOnLongText(String expectedLanguage, CharSequence text) throws IOException {
+        assertEquals(logSpaceDetector.getProbabilities(text).get(0).getLocale().getLanguage(), expectedLanguage);
+        assertEquals(logSpaceDetector.detect(text).get().getLanguage(), expectedLanguage);
+    }
+
+    @Test(dataProvider = "shortCleanTexts")
+    public void sessionShortText(String expectedLanguage, CharSequence text) throws IOException {
+        assertSameAsSession(shortDetector, text);
+        assertSameAsSession(longDetector, text);
+        assertSameAsSession(logSpaceDetector, text);
+    }
+
+    @Test(dataProvider = "longerWikipediaTexts")
+    public void sessionLongText(String expectedLanguage, CharSequence text) throws IOException {
+        assertSameAsSession(longDetector, text);
+        assertSameAsSession(logSpaceDetector, text);
+        assertSameAsSession(adaptiveTrialsDetector, text);
+        assertSameAsSession(sampledTrialsDetector, text);
+        assertSameAsSession(aliasTrialsDetector, text);
+        assertSameAsSession(skipUnknownGramsDetector, text);
+    }
+
+    /**
+     * The session is used twice, the second time it works with the buffers of the first call.
+     */
+    private static void assertSameAsSession(LanguageDetector detector, CharSequence text) {
+        DetectionSession session = detector.newSession();
+        for (int i = 0; i < 2; i++) {
+            assertEquals(session.getProbabilities(text).toString(), detector.getProbabilities(text).toString());
+            assertEquals(session.detect(text), detector.detect(text));
+        }
+    }
+
+    @Test(dataProvider = "shortCleanTexts")
+    public void adaptiveTrialsWorkingOnShortText(String expectedLanguage, CharSequence text) throws IOException {
+        assertEquals(adaptiveTrialsDetector.getProbabilities(text).get(0).getLocale().getLanguage(), expectedLanguage);
+    }
+
+    @Test(dataProvider = "longerWikipediaTexts")
+    public void adaptiveTrialsWorkingOnLongText(String expectedLanguage, CharSequence text) throws IOException {
+        assertEquals(adaptiveTrialsDetector.getProbabilities(text).get(0).getLocale().getLanguage(), expectedLanguage);
+        assertEquals(adaptiveTrialsDetector.detect(text).get().getLanguage(), expectedLanguage);
+    }
+
+    @Test(dataProvider = "shortCleanTexts")
+    public void sampledTrialsWorkingOnShortText(String expectedLanguage, CharSequence text) throws IOException {
+        assertEquals(sampledTrialsDetector.getProbabilities(text).get(0).getLocale().getLanguage(), expectedLanguage);
+    }
+
+    @Test(dataProvider = "longerWikipediaTexts")
+    public void sampledTrialsWorkingOnLongText(String expectedLanguage, CharSequence text) throws IOException {
+        assertEquals(sampledTrialsDetector.getProbabilities(text).get(0).getLocale().getLanguage(), expectedLanguage);
+        assertEquals(sampledTrialsDetector.detect(text).get().getLanguage(), expectedLanguage);
+    }
+
+    @Test(dataProvider = "shortCleanTexts")
+    public void aliasTrialsWorkingOnShortText(String expectedLanguage, CharSequence text) throws IOException {
+        assertEquals(aliasTrialsDetector.getProbabilities(text).get(0).getLocale().getLanguage(), expectedLanguage);
+    }
+
+    @Test(dataProvider = "longerWikipediaTexts")
+    public void aliasTrialsWorkingOnLongText(String expectedLanguage, CharSequence text) throws IOException {
+        assertEquals(aliasTrialsDetector.getProbabilities(text).get(0).getLocale().getLanguage(), expectedLanguage);
+        assertEquals(aliasTrialsDetector.detect(text).get().getLanguage(), expectedLanguage);
+    }
+
+    @Test(dataProvider = "longerWikipediaTexts")
+    public void skipUnknownGramsWorkingOnLongText(String expectedLanguage, CharSequence text) throws IOException {
+        assertEquals(skipUnknownGramsDetector.getProbabilities(text).get(0).getLocale().getLanguage(), expectedLanguage);
+        assertEquals(skipUnknownGramsDetector.detect(text).get().getLanguage(), expectedLanguage);
+    }
+
+    private static void assertSameResult(List<DetectedLanguage> actual, List<DetectedLanguage> expected) {
+        assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < actual.size(); i++) {
+            assertEquals(actual.get(i).getLocale(), expected.get(i).getLocale());
+            assertEquals(actual.get(i).getProbability(), expected.get(i).getProbability(), 0.0001d);
+        }
+    }
+
     @DataProvider
     protected Object[][] shortCleanTexts() {
         return new Object[][] {
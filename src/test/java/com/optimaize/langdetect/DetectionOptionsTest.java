@@ -0,0 +1,225 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+import com.optimaize.langdetect.cybozu.util.LangProfile;
+import com.optimaize.langdetect.frma.LangProfileReader;
+import com.optimaize.langdetect.i18n.LdLocale;
+import com.optimaize.langdetect.ngram.NgramExtractors;
+import com.optimaize.langdetect.profiles.LanguageProfile;
+import com.optimaize.langdetect.profiles.OldLangProfileConverter;
+import com.optimaize.langdetect.text.CommonTextObjectFactories;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.testng.Assert.*;
+
+public class DetectionOptionsTest {
+
+    private static final LdLocale DE = LdLocale.fromString("de");
+    private static final LdLocale NL = LdLocale.fromString("nl");
+    private static final LdLocale EN = LdLocale.fromString("en");
+
+    private static final CharSequence SHORT_TEXT = CommonTextObjectFactories.forDetectingShortCleanText()
+            .forText("Dies ist eine deutsche Text");
+    private static final CharSequence LONG_TEXT = CommonTextObjectFactories.forDetectingOnLargeText()
+            .forText("Dies ist ein etwas längerer deutscher Text, der nicht mehr als kurzer Text durchgeht.");
+
+    @DataProvider
+    protected Object[][] algorithms() {
+        return new Object[][] {
+                {LongTextAlgorithm.RANDOM_TRIALS},
+                {LongTextAlgorithm.SAMPLED_TRIALS},
+                {LongTextAlgorithm.ALIAS_TRIALS},
+                {LongTextAlgorithm.LOG_SPACE},
+        };
+    }
+
+    @Test(dataProvider = "algorithms")
+    public void defaults_sameAsWithout(LongTextAlgorithm algorithm) throws IOException {
+        LanguageDetector detector = makeNewDetector(builder().longTextAlgorithm(algorithm), List.of("en", "fr", "nl", "de"));
+        DetectionSession session = detector.newSession();
+        for (CharSequence text : List.of(SHORT_TEXT, LONG_TEXT, "")) {
+            String expected = detector.getProbabilities(text).toString();
+            assertEquals(detector.getProbabilities(text, DetectionOptions.defaults()).toString(), expected);
+            assertEquals(session.getProbabilities(text, DetectionOptions.defaults()).toString(), expected);
+            assertEquals(detector.detect(text, DetectionOptions.defaults()), detector.detect(text));
+        }
+    }
+
+    /**
+     * Scoring only some languages of the shared model is the same as a model of only those.
+     */
+    @Test(dataProvider = "algorithms")
+    public void allowedLanguages_sameAsModelWithOnlyThose(LongTextAlgorithm algorithm) throws IOException {
+        LanguageDetector all = makeNewDetector(builder().longTextAlgorithm(algorithm).probabilityThreshold(0.0001), List.of("en", "fr", "nl", "de"));
+        LanguageDetector some = makeNewDetector(builder().longTextAlgorithm(algorithm).probabilityThreshold(0.0001), List.of("nl", "en"));
+        DetectionOptions options = DetectionOptions.defaults().allowedLanguages(List.of(EN, NL));
+        for (CharSequence text : List.of(SHORT_TEXT, LONG_TEXT)) {
+            List<DetectedLanguage> expected = some.getProbabilities(text);
+            List<DetectedLanguage> actual = all.getProbabilities(text, options);
+            assertEquals(actual.size(), expected.size());
+            for (int i = 0; i < actual.size(); i++) {
+                assertEquals(actual.get(i).getLocale(), expected.get(i).getLocale());
+                assertEquals(actual.get(i).getProbability(), expected.get(i).getProbability(), 1e-6);
+            }
+            assertEquals(all.newSession().getProbabilities(text, options).toString(), actual.toString());
+            assertEquals(all.detect(text, options), some.detect(text));
+        }
+    }
+
+    @Test
+    public void allowedLanguages_neverReturnsOthers() throws IOException {
+        LanguageDetector detector = makeNewDetector(builder(), List.of("en", "fr", "nl", "de"));
+        DetectionOptions options = DetectionOptions.defaults().allowedLanguages(List.of(EN)).probabilityThreshold(0);
+        for (CharSequence text : List.of(SHORT_TEXT, LONG_TEXT)) {
+            List<DetectedLanguage> result = detector.getProbabilities(text, options);
+            assertEquals(result.size(), 1);
+            assertEquals(result.get(0).getLocale(), EN);
+        }
+    }
+
+    @Test
+    public void languagePriorities_sameAsBuilder() throws IOException {
+        Map<LdLocale, Double> priorities = Map.of(NL, 0.9, DE, 0.1);
+        LanguageDetector detector = makeNewDetector(builder(), List.of("en", "fr", "nl", "de"));
+        LanguageDetector withPriorities = makeNewDetector(builder().languagePriorities(priorities), List.of("en", "fr", "nl", "de"));
+        DetectionOptions options = DetectionOptions.defaults().languagePriorities(priorities);
+        for (CharSequence text : List.of(SHORT_TEXT, LONG_TEXT, "deutsch")) {
+            assertEquals(detector.getProbabilities(text, options).toString(), withPriorities.getProbabilities(text).toString());
+            //and the other way around, an empty map turns them off.
+            assertEquals(withPriorities.getProbabilities(text, DetectionOptions.defaults().languagePriorities(Map.of())).toString(),
+                    detector.getProbabilities(text).toString());
+        }
+    }
+
+    @Test
+    public void thresholds() throws IOException {
+        LanguageDetector detector = makeNewDetector(builder(), List.of("en", "fr", "nl", "de"));
+        CharSequence text = CommonTextObjectFactories.forDetectingShortCleanText().forText("ist");
+        List<DetectedLanguage> all = detector.getProbabilities(text, DetectionOptions.defaults().probabilityThreshold(0));
+        assertEquals(all.size(), 4);
+        List<DetectedLanguage> best = detector.getProbabilities(text, DetectionOptions.defaults().probabilityThreshold(0).maxResults(1));
+        assertEquals(best.toString(), all.subList(0, 1).toString());
+
+        Optional<LdLocale> strict = detector.detect(text, DetectionOptions.defaults().minimalConfidence(1));
+        Optional<LdLocale> lax = detector.detect(text, DetectionOptions.defaults().minimalConfidence(0).probabilityThreshold(0));
+        assertEquals(strict, Optional.empty());
+        assertEquals(lax, Optional.of(all.get(0).getLocale()));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void allowedLanguages_notLoaded() throws IOException {
+        LanguageDetector detector = makeNewDetector(builder(), List.of("en", "de"));
+        detector.getProbabilities(SHORT_TEXT, DetectionOptions.defaults().allowedLanguages(List.of(NL)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void languagePriorities_noneLoaded() throws IOException {
+        LanguageDetector detector = makeNewDetector(builder(), List.of("en", "de"));
+        detector.getProbabilities(SHORT_TEXT, DetectionOptions.defaults().languagePriorities(Map.of(NL, 1.0)));
+    }
+
+    @Test
+    public void cachingDetectorPassesThrough() throws IOException {
+        LanguageDetector detector = makeNewDetector(builder(), List.of("en", "fr", "nl", "de"));
+        CachingLanguageDetector cache = new CachingLanguageDetector(detector, 10);
+        DetectionOptions options = DetectionOptions.defaults().allowedLanguages(List.of(EN, NL));
+        assertEquals(cache.getProbabilities(SHORT_TEXT, options).toString(), detector.getProbabilities(SHORT_TEXT, options).toString());
+        assertEquals(cache.getMissCount() + cache.getHitCount(), 0);
+    }
+
+    /**
+     * A detector that only has the methods without options gets them applied to its results.
+     */
+    @Test
+    public void genericDetector() throws IOException {
+        LanguageDetector impl = makeNewDetector(builder().probabilityThreshold(0), List.of("en", "fr", "nl", "de"));
+        LanguageDetector generic = new LanguageDetector() {
+            @Override
+            public Optional<LdLocale> detect(CharSequence text) {
+                return impl.detect(text);
+            }
+            @Override
+            public List<DetectedLanguage> getProbabilities(CharSequence text) {
+                return impl.getProbabilities(text);
+            }
+        };
+        CharSequence text = CommonTextObjectFactories.forDetectingShortCleanText().forText("ist");
+        assertEquals(generic.getProbabilities(text, DetectionOptions.defaults()).toString(), impl.getProbabilities(text).toString());
+        assertEquals(generic.detect(text, DetectionOptions.defaults()), impl.detect(text));
+
+        DetectionOptions options = DetectionOptions.defaults().allowedLanguages(List.of(EN, NL)).maxResults(1);
+        for (DetectionSession session : List.of(generic.newSession(), new DetectionSession() {
+            @Override
+            public Optional<LdLocale> detect(CharSequence text) {
+                return impl.detect(text);
+            }
+            @Override
+            public List<DetectedLanguage> getProbabilities(CharSequence text) {
+                return impl.getProbabilities(text);
+            }
+        })) {
+            List<DetectedLanguage> result = session.getProbabilities(text, options);
+            assertEquals(result.size(), 1);
+            assertTrue(result.get(0).getLocale().equals(EN) || result.get(0).getLocale().equals(NL));
+            //the two are the only ones, so they make up the whole probability.
+            List<DetectedLanguage> both = session.getProbabilities(text, DetectionOptions.defaults().allowedLanguages(List.of(EN, NL)));
+            assertEquals(both.get(0).getProbability() + both.get(1).getProbability(), 1d, 1e-9);
+            assertEquals(session.detect(text, options.minimalConfidence(0)), Optional.of(result.get(0).getLocale()));
+        }
+    }
+
+    @Test
+    public void batchAndAsync() throws Exception {
+        LanguageDetector detector = makeNewDetector(builder(), List.of("en", "fr", "nl", "de"));
+        DetectionOptions options = DetectionOptions.defaults().allowedLanguages(List.of(EN, NL)).probabilityThreshold(0);
+        List<CharSequence> texts = List.of(SHORT_TEXT, LONG_TEXT, SHORT_TEXT);
+        List<List<DetectedLanguage>> batch = new BatchLanguageDetector(detector).getProbabilitiesAll(texts, options);
+        List<Optional<LdLocale>> detected = new BatchLanguageDetector(detector).detectAll(texts, options);
+        try (AsyncLanguageDetector async = new AsyncLanguageDetector(detector, 10)) {
+            for (int i = 0; i < texts.size(); i++) {
+                String expected = detector.getProbabilities(texts.get(i), options).toString();
+                assertEquals(batch.get(i).toString(), expected);
+                assertEquals(async.getProbabilities(texts.get(i), options).get().toString(), expected);
+                assertEquals(detected.get(i), detector.detect(texts.get(i), options));
+                assertEquals(async.detect(texts.get(i), options).get(), detector.detect(texts.get(i), options));
+            }
+        }
+    }
+
+
+    private static LanguageDetectorBuilder builder() {
+        return LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(50);
+    }
+
+    private static LanguageDetector makeNewDetector(LanguageDetectorBuilder builder, List<String> languages) throws IOException {
+        LangProfileReader langProfileReader = new LangProfileReader();
+        List<LanguageProfile> profiles = new ArrayList<>();
+        for (String language : languages) {
+            LangProfile langProfile = langProfileReader.read(DetectionOptionsTest.class.getResourceAsStream("/languages/" + language));
+            profiles.add(OldLangProfileConverter.convert(langProfile));
+        }
+        return builder.withProfiles(profiles).build();
+    }
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import com.optimaize.langdetect.ngram.NgramExtractors;
+import com.optimaize.langdetect.profiles.LanguageProfileReader;
+import com.optimaize.langdetect.text.CommonTextObjectFactories;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.*;
+
+/**
+ * Feeds texts through the processor from a hand-made upstream that checks the demand.
+ */
+public class DetectionProcessorTest {
+
+    private static final int MAX_BUFFERED = 8;
+
+    private final LanguageDetector detector;
+    private final List<CharSequence> texts = new ArrayList<>();
+
+    public DetectionProcessorTest() throws IOException {
+        detector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(50)
+                .withProfiles(new LanguageProfileReader().readAllBuiltIn())
+                .build();
+        List<String> strings = List.of("This is some English text.", "Ceci est un texte français.",
+                "Dit is een Nederlandse tekst.", "Dies ist eine deutsche Text", "...");
+        for (int i = 0; i < 300; i++) {
+            texts.add(CommonTextObjectFactories.forDetectingShortCleanText().forText(strings.get(i % strings.size()) + " " + i));
+        }
+    }
+
+    @Test
+    public void preservesOrder() throws Exception {
+        List<DetectionResult> results = run(true);
+        assertEquals(results.size(), texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertSame(results.get(i).getText(), texts.get(i));
+            assertEquals(results.get(i).getProbabilities().toString(), detector.getProbabilities(texts.get(i)).toString());
+        }
+    }
+
+    @Test
+    public void unordered() throws Exception {
+        List<DetectionResult> results = run(false);
+        assertEquals(results.size(), texts.size());
+        for (DetectionResult result : results) {
+            assertEquals(result.getProbabilities().toString(), detector.getProbabilities(result.getText()).toString());
+        }
+    }
+
+    @Test
+    public void withOptions() throws Exception {
+        DetectionOptions options = DetectionOptions.defaults()
+                .allowedLanguages(List.of(LdLocale.fromString("nl"), LdLocale.fromString("de")))
+                .maxResults(1);
+        List<DetectionResult> results = run(true, options);
+        assertEquals(results.size(), texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals(results.get(i).getProbabilities().toString(), detector.getProbabilities(texts.get(i), options).toString());
+        }
+    }
+
+    /**
+     * All threads of the executor are workers, and the subscriber is slow: the workers must not all wait for
+     * the delivery, that needs a thread too.
+     */
+    @Test
+    public void slowSubscriber_allThreadsWork() throws Exception {
+        for (boolean preserveOrder : new boolean[]{true, false}) {
+            List<DetectionResult> results = run(preserveOrder, DetectionOptions.defaults(), 2, 2, false, true);
+            assertEquals(results.size(), texts.size());
+        }
+    }
+
+    /**
+     * A single thread for the worker, the delivery gets its own.
+     */
+    @Test
+    public void slowSubscriber_deliveryExecutor() throws Exception {
+        List<DetectionResult> results = run(true, DetectionOptions.defaults(), 1, 1, true, true);
+        assertEquals(results.size(), texts.size());
+    }
+
+    /**
+     * An Error in the detection must reach the subscriber too.
+     */
+    @Test
+    public void errorInDetection() throws Exception {
+        LanguageDetector failing = new LanguageDetector() {
+            @Override public Optional<LdLocale> detect(CharSequence text) { throw new AssertionError("failing"); }
+            @Override public List<DetectedLanguage> getProbabilities(CharSequence text) { throw new AssertionError("failing"); }
+        };
+        //the Error is thrown on to the executor, keep it off the console.
+        ExecutorService executor = Executors.newFixedThreadPool(2, task -> {
+            Thread thread = new Thread(task);
+            thread.setUncaughtExceptionHandler((t, e) -> { });
+            return thread;
+        });
+        try {
+            Throwable error = runFailing(DetectionProcessor.builder(failing).executor(executor).build());
+            assertTrue(error instanceof AssertionError, String.valueOf(error));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejectedByExecutor() throws Exception {
+        Executor rejecting = task -> { throw new RejectedExecutionException("full"); };
+        ExecutorService delivery = Executors.newSingleThreadExecutor();
+        try {
+            Throwable error = runFailing(DetectionProcessor.builder(detector)
+                    .executor(rejecting).deliveryExecutor(delivery).build());
+            assertTrue(error instanceof RejectedExecutionException, String.valueOf(error));
+        } finally {
+            delivery.shutdownNow();
+        }
+    }
+
+    /**
+     * Feeds one text, the processor must fail and cancel upstream.
+     * @return the error the subscriber got
+     */
+    private Throwable runFailing(DetectionProcessor processor) throws Exception {
+        CompletableFuture<Throwable> error = new CompletableFuture<>();
+        processor.subscribe(new Flow.Subscriber<DetectionResult>() {
+            @Override public void onSubscribe(Flow.Subscription subscription) { subscription.request(Long.MAX_VALUE); }
+            @Override public void onNext(DetectionResult item) { error.completeExceptionally(new AssertionError("unexpected result")); }
+            @Override public void onError(Throwable throwable) { error.complete(throwable); }
+            @Override public void onComplete() { error.completeExceptionally(new AssertionError("unexpected completion")); }
+        });
+        CountDownLatch cancelled = new CountDownLatch(1);
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override public void request(long n) { }
+            @Override public void cancel() { cancelled.countDown(); }
+        });
+        processor.onNext(texts.get(0));
+        Throwable result = error.get(30, TimeUnit.SECONDS);
+        assertTrue(cancelled.await(30, TimeUnit.SECONDS));
+        return result;
+    }
+
+    private List<DetectionResult> run(boolean preserveOrder) throws Exception {
+        return run(preserveOrder, DetectionOptions.defaults());
+    }
+
+    private List<DetectionResult> run(boolean preserveOrder, DetectionOptions options) throws Exception {
+        return run(preserveOrder, options, 4, 3, false, false);
+    }
+
+    private List<DetectionResult> run(boolean preserveOrder, DetectionOptions options,
+                                      int threads, int parallelism, boolean separateDelivery,
+                                      boolean slowSubscriber) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ExecutorService delivery = Executors.newSingleThreadExecutor();
+        ScheduledExecutorService requester = Executors.newSingleThreadScheduledExecutor();
+        try {
+            DetectionProcessor.Builder builder = DetectionProcessor.builder(detector)
+                    .executor(executor)
+                    .parallelism(parallelism)
+                    .batchSize(5)
+                    .maxBuffered(MAX_BUFFERED)
+                    .preserveOrder(preserveOrder)
+                    .options(options);
+            if (separateDelivery) builder.deliveryExecutor(delivery);
+            DetectionProcessor processor = builder.build();
+
+            List<DetectionResult> results = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(1);
+            processor.subscribe(new Flow.Subscriber<DetectionResult>() {
+                private Flow.Subscription subscription;
+                @Override public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(slowSubscriber ? 1 : Long.MAX_VALUE);
+                }
+                @Override public void onNext(DetectionResult item) {
+                    results.add(item);
+                    if (slowSubscriber) {
+                        //from another thread, so the delivery has to get a thread of the executor again.
+                        requester.schedule(() -> subscription.request(1), 1, TimeUnit.MILLISECONDS);
+                    }
+                }
+                @Override public void onError(Throwable throwable) { fail("unexpected", throwable); }
+                @Override public void onComplete() { done.countDown(); }
+            });
+
+            AtomicLong requested = new AtomicLong();
+            AtomicLong delivered = new AtomicLong();
+            processor.onSubscribe(new Flow.Subscription() {
+                @Override public void request(long n) {
+                    long outstanding = requested.addAndGet(n) - delivered.get();
+                    assertTrue(outstanding <= MAX_BUFFERED, "outstanding demand " + outstanding);
+                }
+                @Override public void cancel() { fail("not expected"); }
+            });
+            for (CharSequence text : texts) {
+                while (requested.get() == delivered.get()) {
+                    Thread.sleep(1);
+                }
+                delivered.incrementAndGet();
+                processor.onNext(text);
+            }
+            processor.onComplete();
+
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            return results;
+        } finally {
+            executor.shutdownNow();
+            delivery.shutdownNow();
+            requester.shutdownNow();
+        }
+    }
+
+}
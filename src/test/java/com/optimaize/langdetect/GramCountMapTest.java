@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.ngram.GramCodes;
+import com.optimaize.langdetect.ngram.NgramExtractor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GramCountMapTest {
+
+    @Test
+    public void countsInInsertionOrder() {
+        GramCountMap map = new GramCountMap(4);
+        for (String gram : Arrays.asList("b", "a", "b", "ab", "c", "b")) {
+            map.accept(GramCodes.pack(gram));
+        }
+        assertEquals(4, map.size());
+        assertEquals(Arrays.asList("b=3", "a=1", "ab=1", "c=1"), entries(map));
+        assertEquals(3, map.get(GramCodes.pack("b")));
+        assertEquals(0, map.get(GramCodes.pack("x")));
+    }
+
+    @Test
+    public void growsAndClears() {
+        GramCountMap map = new GramCountMap(4);
+        for (int round = 0; round < 3; round++) {
+            for (char c = 'a'; c < 'a' + 500; c++) {
+                map.add(GramCodes.pack(c), 2);
+            }
+            assertEquals(500, map.size());
+            assertEquals(2, map.get(GramCodes.pack('a')));
+            assertEquals(2, map.get(GramCodes.pack((char) ('a' + 499))));
+            map.clear();
+            assertTrue(map.isEmpty());
+            assertEquals(0, map.get(GramCodes.pack('a')));
+        }
+    }
+
+    @Test
+    public void sameAsExtractCountedGrams() {
+        NgramExtractor extractor = NgramExtractor.gramLengths(1, 2, 3).textPadding(' ');
+        GramCountMap map = new GramCountMap();
+        for (String text : Arrays.asList("Foo bar", "", "aaaa aaaa", "x", "Dies ist ein Text, ein kurzer Text")) {
+            map.clear();
+            extractor.extractGrams(text, map);
+            map.groupByLength(extractor.getGramLengths());
+            List<String> expected = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : extractor.extractCountedGrams(text).entrySet()) {
+                expected.add(entry.getKey() + "=" + entry.getValue());
+            }
+            assertEquals(text, expected, entries(map));
+            if (text.isEmpty()) continue;
+            //lookups still work after grouping:
+            assertEquals(text, (int) extractor.extractCountedGrams(text).get(" "+text.charAt(0)), map.get(GramCodes.pack(' ', text.charAt(0))));
+        }
+    }
+
+    private static List<String> entries(GramCountMap map) {
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < map.size(); i++) {
+            entries.add(GramCodes.toString(map.code(i)) + "=" + map.count(i));
+        }
+        return entries;
+    }
+
+}
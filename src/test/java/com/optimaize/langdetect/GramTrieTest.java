@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+import com.optimaize.langdetect.ngram.GramCodes;
+import com.optimaize.langdetect.ngram.NgramExtractor;
+import com.optimaize.langdetect.ngram.NgramExtractors;
+import com.optimaize.langdetect.profiles.LanguageProfile;
+import com.optimaize.langdetect.profiles.LanguageProfileReader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the trie with the gram index, for all grams of the built-in profiles.
+ */
+public class GramTrieTest {
+
+    private static NgramFrequencyData data;
+    private static GramTrie trie;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        List<LanguageProfile> languageProfiles = new LanguageProfileReader().readAllBuiltIn();
+        data = NgramFrequencyData.create(languageProfiles, NgramExtractors.standard().getGramLengths());
+        trie = new GramTrie(data.getGramIndex(), data.getNumGrams());
+    }
+
+    @Test
+    public void sameIds() {
+        long[] codes = data.getGramIndex().getCodes(data.getNumGrams());
+        for (int gramId = 0; gramId < codes.length; gramId++) {
+            assertEquals(gramId, trie.get(codes[gramId]));
+        }
+    }
+
+    @Test
+    public void unknownGrams() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            //mostly frequent chars, but also others.
+            char c1 = (char) (random.nextBoolean() ? 'A' + random.nextInt(60) : random.nextInt(0x3100));
+            char c2 = (char) (random.nextBoolean() ? 'A' + random.nextInt(60) : random.nextInt(0x3100));
+            for (long code : new long[]{GramCodes.pack(c1), GramCodes.pack(c1, c2), GramCodes.pack(c1, c2, c1)}) {
+                assertEquals(data.getGramId(code), trie.get(code));
+            }
+        }
+    }
+
+    @Test
+    public void extractGrams_sameAsExtractorAndIndex() {
+        List<NgramExtractor> extractors = Arrays.asList(
+                NgramExtractors.standard(),
+                NgramExtractors.backwards(),
+                NgramExtractor.gramLengths(3, 1),
+                NgramExtractor.gramLength(2).textPadding('_')
+        );
+        for (NgramExtractor extractor : extractors) {
+            TrieGramExtractor trieExtractor = new TrieGramExtractor(trie, extractor);
+            for (String text : Arrays.asList("", "a", " ", "Foo bar", "Dies ist ein Text", "Это текст", "日本語のテキスト", "__x_")) {
+                List<String> expected = new ArrayList<>();
+                extractor.extractGrams(text, code -> expected.add(GramCodes.toString(code) + "=" + data.getGramId(code)));
+                List<String> actual = new ArrayList<>();
+                trieExtractor.extractGrams(text, (code, gramId) -> actual.add(GramCodes.toString(code) + "=" + gramId));
+                assertEquals(text, expected, actual);
+            }
+        }
+    }
+
+}
@@ -55,8 +55,52 @@ public class LanguageDetectorImplTest {
     }
 
 
+    @Test
+    public void logSpaceIgnoresSeed() throws Exception {
+        CharSequence text = CommonTextObjectFactories.forDetectingOnLargeText().create()
+                .append("Dies ist ein etwas längerer deutscher Text, der nicht mehr als kurzer Text durchgeht.");
+        List<DetectedLanguage> first = makeNewDetector(LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .longTextAlgorithm(LongTextAlgorithm.LOG_SPACE).seed(1)).getProbabilities(text);
+        List<DetectedLanguage> second = makeNewDetector(LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .longTextAlgorithm(LongTextAlgorithm.LOG_SPACE).seed(2)).getProbabilities(text);
+        assertEquals(first.get(0).getLocale().getLanguage(), "de");
+        assertEquals(first.toString(), second.toString());
+    }
+
+    @Test
+    public void skipUnknownGrams() throws Exception {
+        CharSequence text = CommonTextObjectFactories.forDetectingOnLargeText().create()
+                .append("Dies ist ein etwas längerer deutscher Text, der nicht mehr als kurzer Text durchgeht. 日本語");
+        for (LongTextAlgorithm algorithm : List.of(LongTextAlgorithm.RANDOM_TRIALS, LongTextAlgorithm.SAMPLED_TRIALS, LongTextAlgorithm.ALIAS_TRIALS)) {
+            List<DetectedLanguage> result = makeNewDetector(LanguageDetectorBuilder.create(NgramExtractors.standard())
+                    .longTextAlgorithm(algorithm).skipUnknownGrams(true)).getProbabilities(text);
+            assertEquals(result.get(0).getLocale().getLanguage(), "de", algorithm.name());
+        }
+    }
+
+    /**
+     * Without any known gram there is nothing to leave out, the result is the same.
+     */
+    @Test
+    public void skipUnknownGrams_noneKnown() throws Exception {
+        CharSequence text = CommonTextObjectFactories.forDetectingOnLargeText().create()
+                .append("日本語のテキストです。日本語のテキストです。日本語のテキストです。日本語のテキストです。日本語のテキストです。");
+        for (LongTextAlgorithm algorithm : List.of(LongTextAlgorithm.RANDOM_TRIALS, LongTextAlgorithm.SAMPLED_TRIALS, LongTextAlgorithm.ALIAS_TRIALS)) {
+            List<DetectedLanguage> expected = makeNewDetector(LanguageDetectorBuilder.create(NgramExtractors.standard())
+                    .longTextAlgorithm(algorithm)).getProbabilities(text);
+            List<DetectedLanguage> actual = makeNewDetector(LanguageDetectorBuilder.create(NgramExtractors.standard())
+                    .longTextAlgorithm(algorithm).skipUnknownGrams(true)).getProbabilities(text);
+            assertEquals(actual.toString(), expected.toString(), algorithm.name());
+        }
+    }
+
+
     private LanguageDetector makeNewDetector() throws IOException {
-        LanguageDetectorBuilder builder = LanguageDetectorBuilder.create(NgramExtractors.standard())
+        return makeNewDetector(LanguageDetectorBuilder.create(NgramExtractors.standard()));
+    }
+
+    private LanguageDetector makeNewDetector(LanguageDetectorBuilder builder) throws IOException {
+        builder
             .shortTextAlgorithm(50)
             .prefixFactor(1.5)
             .suffixFactor(2.0);
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.ngram.NgramExtractors;
+import com.optimaize.langdetect.profiles.LanguageProfile;
+import com.optimaize.langdetect.profiles.LanguageProfileReader;
+import com.optimaize.langdetect.text.CommonTextObjectFactories;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Writes the built-in profiles to a compiled model file, maps it, and compares with the heap data.
+ */
+public class NgramFrequencyDataReaderTest {
+
+    private static NgramFrequencyData heap;
+    private static NgramFrequencyData mapped;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        List<LanguageProfile> languageProfiles = new LanguageProfileReader().readAllBuiltIn();
+        heap = NgramFrequencyData.create(languageProfiles, NgramExtractors.standard().getGramLengths(), ProbabilityStorage.SPARSE);
+        File file = File.createTempFile("compiled-model-", null);
+        file.deleteOnExit();
+        new NgramFrequencyDataWriter().write(heap, file);
+        mapped = new NgramFrequencyDataReader().map(file);
+    }
+
+    @Test
+    public void sameData() {
+        assertEquals(mapped.getLanguageList(), heap.getLanguageList());
+        assertEquals(mapped.getNumGrams(), heap.getNumGrams());
+        for (String gram : List.of("a", "ß", "de", " d", "dam", "the", "ung", "xqz")) {
+            assertArrayEquals(mapped.getProbabilities(gram), heap.getProbabilities(gram), 0d);
+        }
+    }
+
+    @Test
+    public void sameResults() {
+        LanguageDetector heapDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .withNgramFrequencyData(heap)
+                .build();
+        LanguageDetector mappedDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .withNgramFrequencyData(mapped)
+                .build();
+        for (String text : List.of("Dies ist eine deutsche Text", "Ceci est un texte français.", "This is some English text, a bit longer than the short text limit of fifty chars.")) {
+            CharSequence textObject = CommonTextObjectFactories.forDetectingShortCleanText().forText(text);
+            assertEquals(mappedDetector.getProbabilities(textObject).toString(), heapDetector.getProbabilities(textObject).toString());
+        }
+    }
+
+    /**
+     * No log table is made for the mapped model, the logs computed per gram give the same.
+     */
+    @Test
+    public void sameResults_logSpace() {
+        assertTrue(mapped.getTable().isMapped());
+        assertFalse(heap.getTable().isMapped());
+        LanguageDetector heapDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .withNgramFrequencyData(heap)
+                .longTextAlgorithm(LongTextAlgorithm.LOG_SPACE)
+                .build();
+        LanguageDetector mappedDetector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .withNgramFrequencyData(mapped)
+                .longTextAlgorithm(LongTextAlgorithm.LOG_SPACE)
+                .build();
+        String text = "This is some English text, a bit longer than the short text limit. Und dann noch ein deutscher Satz.";
+        CharSequence textObject = CommonTextObjectFactories.forDetectingShortCleanText().forText(text);
+        assertEquals(mappedDetector.getProbabilities(textObject).toString(), heapDetector.getProbabilities(textObject).toString());
+        assertEquals(mappedDetector.segment(textObject, 30).toString(), heapDetector.segment(textObject, 30).toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void notAModel() throws IOException {
+        File file = File.createTempFile("not-a-model-", null);
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("{\"freq\":{}}".getBytes());
+        }
+        new NgramFrequencyDataReader().map(file);
+    }
+
+}
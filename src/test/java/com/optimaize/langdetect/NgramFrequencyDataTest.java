@@ -17,6 +17,7 @@
 package com.optimaize.langdetect;
 
 import com.optimaize.langdetect.i18n.LdLocale;
+import com.optimaize.langdetect.ngram.GramCodes;
 import com.optimaize.langdetect.profiles.LanguageProfile;
 import com.optimaize.langdetect.profiles.LanguageProfileReader;
 import org.junit.BeforeClass;
@@ -26,7 +27,9 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Set;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -78,4 +81,68 @@ public class NgramFrequencyDataTest {
         assertEquals(allThreeGrams.getProbabilities("da"), null);
     }
 
+    @Test
+    public void lookupByCode() throws Exception {
+        assertArrayEquals(allThreeGrams.getProbabilities(GramCodes.pack("dam")), allThreeGrams.getProbabilities("dam"), 0d);
+        assertNull(allThreeGrams.getProbabilities(GramCodes.pack("da")));
+        assertNull(allThreeGrams.getProbabilities(GramCodes.NONE));
+    }
+
+    @Test
+    public void lookupByInvalidCode() throws Exception {
+        assertEquals(allThreeGrams.getGramId(0L), -1);
+        assertNull(allThreeGrams.getProbabilities(0L));
+        //length 1 but chars in the place of a 3-gram:
+        long invalid = (1L << 48) | (GramCodes.pack("dam") & 0xFFFF_FFFF_FFFFL);
+        assertEquals(allThreeGrams.getGramId(invalid), -1);
+        assertNull(allThreeGrams.getProbabilities(invalid));
+    }
+
+    @Test
+    public void rowAccessByGramId() throws Exception {
+        int gramId = allThreeGrams.getGramId("dam");
+        assertTrue(gramId >= 0 && gramId < allThreeGrams.getNumGrams());
+        assertEquals(allThreeGrams.getGramId(GramCodes.pack("dam")), gramId);
+        double[] probabilities = allThreeGrams.getProbabilities("dam");
+        for (int i = 0; i < probabilities.length; i++) {
+            assertEquals(allThreeGrams.getProbability(gramId, i), probabilities[i], 0d);
+        }
+        assertEquals(allThreeGrams.getGramId("da"), -1);
+    }
+
+    @Test
+    public void sparseStorageHasSameData() throws Exception {
+        List<LanguageProfile> languageProfiles = new LanguageProfileReader().readAllBuiltIn();
+        NgramFrequencyData sparse = NgramFrequencyData.create(languageProfiles, Set.of(3), ProbabilityStorage.SPARSE);
+        assertEquals(sparse.getNumGrams(), allThreeGrams.getNumGrams());
+        assertEquals(sparse.getLanguageList(), allThreeGrams.getLanguageList());
+        for (String gram : List.of("dam", "the", "ung", " de", "xyz")) {
+            assertEquals(sparse.getGramId(gram), allThreeGrams.getGramId(gram));
+            assertArrayEquals(sparse.getProbabilities(gram), allThreeGrams.getProbabilities(gram), 0d);
+        }
+    }
+
+    @Test
+    public void quantizedStorageRelativeError() throws Exception {
+        List<LanguageProfile> languageProfiles = new LanguageProfileReader().readAllBuiltIn();
+        NgramFrequencyData q16 = NgramFrequencyData.create(languageProfiles, Set.of(3), ProbabilityStorage.QUANTIZED_16);
+        NgramFrequencyData q8 = NgramFrequencyData.create(languageProfiles, Set.of(3), ProbabilityStorage.QUANTIZED_8);
+        assertEquals(q16.getNumGrams(), allThreeGrams.getNumGrams());
+        double maxError16 = 0, maxError8 = 0;
+        for (int gramId = 0; gramId < allThreeGrams.getNumGrams(); gramId += 7) {
+            for (int lang = 0; lang < allThreeGrams.getLanguageList().size(); lang++) {
+                double p = allThreeGrams.getProbability(gramId, lang);
+                if (p == 0d) {
+                    assertEquals(q16.getProbability(gramId, lang), 0d, 0d);
+                    assertEquals(q8.getProbability(gramId, lang), 0d, 0d);
+                } else {
+                    maxError16 = Math.max(maxError16, Math.abs(q16.getProbability(gramId, lang) - p) / p);
+                    maxError8 = Math.max(maxError8, Math.abs(q8.getProbability(gramId, lang) - p) / p);
+                }
+            }
+        }
+        assertTrue("relative error QUANTIZED_16: "+maxError16, maxError16 < 0.0001);
+        assertTrue("relative error QUANTIZED_8: "+maxError8, maxError8 < 0.03);
+    }
+
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.cybozu.util.Util;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the kernel that was selected for this JVM with the plain loops.
+ *
+ * <p>The default test run uses the classes directory, so this is the scalar kernel. On Java 17+ the build runs
+ * this test a second time with the versioned classes and {@code --add-modules jdk.incubator.vector}, and sets
+ * {@code com.optimaize.langdetect.expectVectorKernel} so that falling back to the scalar kernel fails.</p>
+ */
+public class ScoringKernelTest {
+
+    private final ScoringKernel kernel = ScoringKernel.get();
+
+    @Test
+    public void expectedKernel() {
+        if (Boolean.getBoolean("com.optimaize.langdetect.expectVectorKernel")) {
+            assertNotSame(ScoringKernel.SCALAR, kernel);
+        }
+    }
+
+    @Test
+    public void multiplyIsExact() {
+        Random random = new Random(42);
+        for (int numLanguages : new int[]{1, 3, 4, 7, 8, 71}) {
+            double[] matrix = randomArray(random, numLanguages * 3);
+            double[] prob = randomArray(random, numLanguages);
+            double[] expected = prob.clone();
+            for (int i = 0; i < expected.length; i++) expected[i] *= (0.00005 + matrix[numLanguages + i]);
+            kernel.multiply(prob, matrix, numLanguages, 0.00005);
+            assertArrayEquals(expected, prob, 0d);
+        }
+    }
+
+    @Test
+    public void normalize() {
+        Random random = new Random(42);
+        for (int numLanguages : new int[]{1, 3, 4, 7, 8, 71}) {
+            double[] prob = randomArray(random, numLanguages);
+            double[] expected = prob.clone();
+            double expectedMax = Util.normalizeProb(expected);
+            assertEquals(expectedMax, kernel.normalize(prob), 1e-15);
+            assertArrayEquals(expected, prob, 1e-15);
+        }
+    }
+
+    private static double[] randomArray(Random random, int length) {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) array[i] = random.nextDouble();
+        return array;
+    }
+
+}
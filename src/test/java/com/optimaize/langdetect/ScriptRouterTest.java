@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import com.optimaize.langdetect.ngram.NgramExtractors;
+import com.optimaize.langdetect.profiles.LanguageProfileReader;
+import com.optimaize.langdetect.text.CommonTextObjectFactories;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.testng.Assert.*;
+
+public class ScriptRouterTest {
+
+    private final NgramFrequencyData data;
+    private final ScriptRouter router;
+
+    public ScriptRouterTest() throws IOException {
+        data = NgramFrequencyData.create(new LanguageProfileReader().readAllBuiltIn(), Arrays.asList(1, 2, 3));
+        router = new ScriptRouter(data);
+    }
+
+    @Test
+    public void singleLanguageScripts() {
+        assertEquals(languages("ภาษาไทยเป็นภาษาราชการของประเทศไทย"), Arrays.asList("th"));
+        assertEquals(languages("Η ελληνική γλώσσα ανήκει στην ινδοευρωπαϊκή οικογένεια"), Arrays.asList("el"));
+        assertEquals(languages("한국어는 대한민국의 공용어이다"), Arrays.asList("ko"));
+    }
+
+    @Test
+    public void sharedScripts() {
+        assertEquals(languages("Русский язык является государственным языком"),
+                Arrays.asList("be", "bg", "mk", "ru", "sr", "uk"));
+        assertEquals(languages("עברית היא שפה שמית"), Arrays.asList("he", "yi"));
+        //kana and kanji together:
+        assertTrue(languages("日本語は日本の公用語である。ひらがなとカタカナ").contains("ja"));
+        List<String> latin = languages("This is an English sentence.");
+        assertTrue(latin.contains("en") && latin.contains("de") && latin.contains("vi"), latin.toString());
+        assertFalse(latin.contains("ru") || latin.contains("th") || latin.contains("he"), latin.toString());
+    }
+
+    @Test
+    public void minorityScriptsAreIgnored() {
+        assertEquals(languages("Русский язык является государственным языком в России (Russia)"),
+                Arrays.asList("be", "bg", "mk", "ru", "sr", "uk"));
+    }
+
+    @Test
+    public void noRestriction() {
+        assertNull(router.candidates(""));
+        assertNull(router.candidates("12345 !?"));
+        //Armenian, no built-in language is written in it:
+        assertNull(router.candidates("Հայերեն"));
+    }
+
+    @Test
+    public void detector() throws IOException {
+        LanguageDetector routed = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .withNgramFrequencyData(data)
+                .scriptRouting(true)
+                .build();
+        LanguageDetector plain = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .withNgramFrequencyData(data)
+                .build();
+
+        List<DetectedLanguage> thai = routed.getProbabilities("ภาษาไทยเป็นภาษาราชการของประเทศไทย");
+        assertEquals(thai.size(), 1);
+        assertEquals(thai.get(0).getLocale(), LdLocale.fromString("th"));
+        assertEquals(thai.get(0).getProbability(), 1d);
+
+        for (String text : Arrays.asList(
+                "Русский язык является государственным языком Российской Федерации",
+                "This is an English sentence about the weather in the mountains.",
+                "Die Bundesrepublik Deutschland ist ein Bundesstaat in Mitteleuropa.")) {
+            CharSequence textObject = CommonTextObjectFactories.forDetectingShortCleanText().forText(text);
+            Optional<LdLocale> expected = plain.detect(textObject);
+            assertTrue(expected.isPresent(), text);
+            assertEquals(routed.detect(textObject), expected, text);
+        }
+    }
+
+    private List<String> languages(String text) {
+        int[] candidates = router.candidates(text);
+        assertNotNull(candidates, text);
+        List<String> result = new ArrayList<>();
+        for (int lang : candidates) {
+            result.add(data.getLanguage(lang).toString());
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.ngram.NgramExtractors;
+import com.optimaize.langdetect.profiles.LanguageProfileReader;
+import com.optimaize.langdetect.text.CommonTextObjectFactories;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.*;
+
+/**
+ * Segments a text that is glued together from parts in different languages.
+ */
+public class SegmentationTest {
+
+    private final LanguageDetector detector;
+
+    public SegmentationTest() throws IOException {
+        detector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .withProfiles(new LanguageProfileReader().readAllBuiltIn())
+                .build();
+    }
+
+    @Test
+    public void threeLanguages() {
+        String de = readText("/texts/de-wikipedia-Deutschland.txt").substring(0, 600);
+        String fr = readText("/texts/fr-wikipedia-France.txt").substring(0, 400);
+        String it = readText("/texts/it-wikipedia-Italia.txt").substring(0, 500);
+        CharSequence text = CommonTextObjectFactories.forDetectingShortCleanText().forText(de + " " + fr + " " + it);
+
+        List<LanguageSpan> spans = detector.segment(text, 100);
+        assertEquals(spans.size(), 3, spans.toString());
+        assertEquals(spans.get(0).getLocale().getLanguage(), "de");
+        assertEquals(spans.get(1).getLocale().getLanguage(), "fr");
+        assertEquals(spans.get(2).getLocale().getLanguage(), "it");
+        assertEquals(spans.get(0).getStart(), 0);
+        assertEquals(spans.get(0).getEnd(), spans.get(1).getStart());
+        assertEquals(spans.get(1).getEnd(), spans.get(2).getStart());
+        assertEquals(spans.get(2).getEnd(), text.length());
+        //the boundaries are near the real ones:
+        int deEnd = CommonTextObjectFactories.forDetectingShortCleanText().forText(de + " ").length();
+        int frEnd = CommonTextObjectFactories.forDetectingShortCleanText().forText(de + " " + fr + " ").length();
+        assertEquals(spans.get(0).getEnd(), deEnd, 20, spans + " vs " + deEnd);
+        assertEquals(spans.get(1).getEnd(), frEnd, 20, spans + " vs " + frEnd);
+        for (LanguageSpan span : spans) {
+            assertTrue(span.getProbability() > 0.99, span.toString());
+        }
+    }
+
+    @Test
+    public void oneLanguage() {
+        CharSequence text = CommonTextObjectFactories.forDetectingShortCleanText().forText(
+                readText("/texts/fr-wikipedia-France.txt").substring(0, 2000));
+        List<LanguageSpan> spans = detector.segment(text, 80);
+        assertEquals(spans.size(), 1, spans.toString());
+        assertEquals(spans.get(0).getLocale().getLanguage(), "fr");
+        assertEquals(spans.get(0).getEnd(), text.length());
+    }
+
+    /**
+     * With a small window the padding chars at the start and the end can get another language than the text
+     * next to them, that must not give spans without chars.
+     */
+    @Test
+    public void smallWindows() {
+        for (String text : new String[]{"Das ist gut x", "ab", "a", " ab "}) {
+            for (int windowLength = 1; windowLength <= 4; windowLength++) {
+                List<LanguageSpan> spans = detector.segment(text, windowLength);
+                assertFalse(spans.isEmpty(), text);
+                int start = 0;
+                for (LanguageSpan span : spans) {
+                    assertEquals(span.getStart(), start, text + " " + windowLength + ": " + spans);
+                    assertTrue(span.getEnd() > span.getStart(), text + " " + windowLength + ": " + spans);
+                    start = span.getEnd();
+                }
+                assertEquals(start, text.length(), text + " " + windowLength + ": " + spans);
+            }
+        }
+    }
+
+    @Test
+    public void noText() {
+        assertTrue(detector.segment("", 50).isEmpty());
+        assertTrue(detector.segment("...", 50).isEmpty());
+    }
+
+    private static String readText(String path) {
+        try (InputStream inputStream = SegmentationTest.class.getResourceAsStream(path)) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+                return in.lines().collect(Collectors.joining(" "));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
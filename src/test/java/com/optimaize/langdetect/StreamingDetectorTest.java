@@ -0,0 +1,192 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+
+import com.optimaize.langdetect.i18n.LdLocale;
+import com.optimaize.langdetect.ngram.NgramExtractor;
+import com.optimaize.langdetect.ngram.NgramExtractors;
+import com.optimaize.langdetect.profiles.LanguageProfileBuilder;
+import com.optimaize.langdetect.profiles.LanguageProfileReader;
+import com.optimaize.langdetect.text.CommonTextObjectFactories;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.*;
+
+/**
+ * The result after each chunk must be the same as detecting all the text so far at once,
+ * with the {@link LongTextAlgorithm#LOG_SPACE} algorithm.
+ */
+public class StreamingDetectorTest {
+
+    private static final Map<String, String> WIKIPEDIA_TITLES = new HashMap<>();
+    static {
+        WIKIPEDIA_TITLES.put("de", "Deutschland");
+        WIKIPEDIA_TITLES.put("fr", "France");
+        WIKIPEDIA_TITLES.put("it", "Italia");
+    }
+
+    private final LanguageDetector detector;
+
+    public StreamingDetectorTest() throws IOException {
+        detector = LanguageDetectorBuilder.create(NgramExtractors.standard())
+                .shortTextAlgorithm(0)
+                .longTextAlgorithm(LongTextAlgorithm.LOG_SPACE)
+                .withProfiles(new LanguageProfileReader().readAllBuiltIn())
+                .build();
+    }
+
+    @Test
+    public void sameAsWholeText() {
+        assertSameAsWholeText("This  is some English text.  Ceci est un texte français.", 3);
+        assertSameAsWholeText(" Dies ist eine deutsche Text ", 1);
+        assertSameAsWholeText(readText("/texts/fr-wikipedia-France.txt").substring(0, 3000), 97);
+    }
+
+    @Test
+    public void sameAsWholeText_gramsThatCantBePacked() {
+        NgramExtractor extractor = NgramExtractor.gramLengths(1, 2, 3, 4).textPadding(' ');
+        LanguageDetectorBuilder builder = LanguageDetectorBuilder.create(extractor)
+                .shortTextAlgorithm(0)
+                .longTextAlgorithm(LongTextAlgorithm.LOG_SPACE);
+        for (String language : new String[]{"de", "fr", "it"}) {
+            builder.withProfile(new LanguageProfileBuilder(language).ngramExtractor(extractor)
+                    .addText(readText("/texts/" + language + "-wikipedia-" + WIKIPEDIA_TITLES.get(language) + ".txt"))
+                    .build());
+        }
+        LanguageDetector detector = builder.build();
+        assertSameAsWholeText(detector, "This  is some English text.  Ceci est un texte français.", 3);
+        assertSameAsWholeText(detector, readText("/texts/fr-wikipedia-France.txt").substring(0, 1000), 97);
+    }
+
+    private void assertSameAsWholeText(String text, int maxChunkLength) {
+        assertSameAsWholeText(detector, text, maxChunkLength);
+    }
+
+    private static void assertSameAsWholeText(LanguageDetector detector, String text, int maxChunkLength) {
+        Random random = new Random(42);
+        StreamingDetector stream = detector.newStreamingDetector(1d);
+        int pos = 0;
+        while (pos < text.length() && !stream.isDone()) {
+            int end = Math.min(text.length(), pos + 1 + random.nextInt(maxChunkLength));
+            stream.append(text.toCharArray(), pos, end - pos);
+            pos = end;
+
+            CharSequence soFar = CommonTextObjectFactories.forDetectingShortCleanText().forText(text.substring(0, pos));
+            assertEquals(stream.getLength(), soFar.length());
+            assertSameResult(stream.getProbabilities(), detector.getProbabilities(soFar));
+            assertEquals(stream.detect(), detector.detect(soFar));
+        }
+    }
+
+    @Test
+    public void stopsReading() throws IOException {
+        String text = readText("/texts/de-wikipedia-Deutschland.txt");
+        StreamingDetector stream = detector.newStreamingDetector(0.999d).append(new StringReader(text));
+        assertTrue(stream.isDone());
+        assertTrue(stream.getLength() < text.length() / 2, "read: " + stream.getLength());
+        assertEquals(stream.detect().get().getLanguage(), "de");
+
+        //ignored:
+        int length = stream.getLength();
+        stream.append("more text");
+        assertEquals(stream.getLength(), length);
+    }
+
+    /**
+     * The log-space probabilities say Maltese with 0.99 after "L'Italia", the stop criterion must not trust that.
+     */
+    @Test
+    public void shortAmbiguousPrefixDoesNotStop() {
+        String text = readText("/texts/it-wikipedia-Italia.txt");
+        StreamingDetector stream = detector.newStreamingDetector(0.99d);
+        int pos = 0;
+        while (pos < text.length() && !stream.isDone()) {
+            stream.append(text.substring(pos, pos + 1));
+            pos++;
+            if (pos == 8) {
+                assertEquals(stream.getProbabilities().get(0).getLocale().getLanguage(), "mt");
+                assertTrue(stream.getProbabilities().get(0).getProbability() > 0.99d);
+            }
+        }
+        assertTrue(stream.isDone());
+        assertTrue(pos > 50, "stopped after: " + pos);
+        assertEquals(stream.detect().get().getLanguage(), "it");
+    }
+
+    @Test
+    public void buffering_detectsAgainOnlyAfterDoubling() {
+        AtomicInteger detections = new AtomicInteger();
+        LanguageDetector counting = new LanguageDetector() {
+            @Override
+            public Optional<LdLocale> detect(CharSequence text) {
+                return detector.detect(text);
+            }
+            @Override
+            public List<DetectedLanguage> getProbabilities(CharSequence text) {
+                detections.incrementAndGet();
+                return detector.getProbabilities(text);
+            }
+        };
+        String text = readText("/texts/fr-wikipedia-France.txt").substring(0, 1000);
+        StreamingDetector stream = counting.newStreamingDetector(1d);
+        for (int i = 0; i < text.length() && !stream.isDone(); i++) {
+            stream.append(text.substring(i, i + 1));
+        }
+        assertTrue(detections.get() <= 11, "detections: " + detections.get());
+        assertEquals(stream.getProbabilities().get(0).getLocale().getLanguage(), "fr");
+    }
+
+    @Test
+    public void noText() {
+        StreamingDetector stream = detector.newStreamingDetector(0.999d).append("");
+        assertFalse(stream.isDone());
+        assertTrue(stream.getProbabilities().isEmpty());
+        assertFalse(stream.detect().isPresent());
+    }
+
+    private static void assertSameResult(List<DetectedLanguage> actual, List<DetectedLanguage> expected) {
+        assertEquals(actual.size(), expected.size(), actual + " vs " + expected);
+        for (int i = 0; i < actual.size(); i++) {
+            assertEquals(actual.get(i).getLocale(), expected.get(i).getLocale());
+            assertEquals(actual.get(i).getProbability(), expected.get(i).getProbability(), 1e-9);
+        }
+    }
+
+    private static String readText(String path) {
+        try (InputStream inputStream = StreamingDetectorTest.class.getResourceAsStream(path)) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+                return in.lines().collect(Collectors.joining(" "));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
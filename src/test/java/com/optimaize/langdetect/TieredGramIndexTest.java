@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.optimaize.langdetect;
+import com.optimaize.langdetect.ngram.GramCodes;
+import com.optimaize.langdetect.ngram.NgramExtractors;
+import com.optimaize.langdetect.profiles.LanguageProfile;
+import com.optimaize.langdetect.profiles.LanguageProfileReader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the tiered index with the index it wraps, for all grams of the built-in profiles.
+ */
+public class TieredGramIndexTest {
+
+    private static NgramFrequencyData data;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        List<LanguageProfile> languageProfiles = new LanguageProfileReader().readAllBuiltIn();
+        data = NgramFrequencyData.create(languageProfiles, NgramExtractors.standard().getGramLengths());
+    }
+
+    @Test
+    public void sameIds() {
+        GramIndex rest = data.getGramIndex();
+        for (int frequentChars : new int[]{0, 64, 1000}) {
+            TieredGramIndex tiered = new TieredGramIndex(rest, data.getTable(), frequentChars);
+            assertEquals(rest.size(), tiered.size());
+            assertTrue(tiered.getNumHot() >= 53 + Math.min(frequentChars, 100));
+            long[] codes = rest.getCodes(data.getNumGrams());
+            for (int gramId = 0; gramId < codes.length; gramId++) {
+                assertEquals(gramId, tiered.get(codes[gramId]));
+            }
+        }
+    }
+
+    @Test
+    public void unknownGrams() {
+        GramIndex rest = data.getGramIndex();
+        TieredGramIndex tiered = new TieredGramIndex(rest, data.getTable(), 64);
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            //mostly the hot chars, but also others.
+            char c1 = (char) (random.nextBoolean() ? 'A' + random.nextInt(60) : random.nextInt(0x3100));
+            char c2 = (char) (random.nextBoolean() ? 'A' + random.nextInt(60) : random.nextInt(0x3100));
+            for (long code : new long[]{GramCodes.pack(c1), GramCodes.pack(c1, c2), GramCodes.pack(c1, c2, c1)}) {
+                assertEquals(rest.get(code), tiered.get(code));
+            }
+        }
+    }
+
+}
@@ -18,6 +18,7 @@ package com.optimaize.langdetect.ngram;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -57,4 +58,12 @@ public class BackwardsCompatibleNgramFilterTest {
         assertFalse(filter.use("ABC"));
     }
     
+
+    @Test
+    public void packedSameAsString() throws Exception {
+        for (String gram : new String[]{"a", "A", " ", "ab", "Ab", "AB", "a ", " a", "abc", "ABC", "AbC", "ab ", " ab", "a c", "A C"}) {
+            assertEquals(gram, filter.use(gram), filter.use(GramCodes.pack(gram)));
+        }
+    }
+
 }
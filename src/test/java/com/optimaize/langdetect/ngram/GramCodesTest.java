@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 the language-detector authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.optimaize.langdetect.ngram;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GramCodesTest {
+
+    @Test
+    public void roundTrip() {
+        for (String gram : new String[]{"a", " a", "a ", "foo", "あい", "\u0000", "\u0000\u0000", "￿￿￿"}) {
+            long code = GramCodes.pack(gram);
+            assertTrue(GramCodes.isValid(code));
+            assertEquals(GramCodes.length(code), gram.length());
+            assertEquals(GramCodes.toString(code), gram);
+        }
+    }
+
+    @Test
+    public void differentLengthsNeverCollide() {
+        assertNotEquals(GramCodes.pack("\u0000"), GramCodes.pack("\u0000\u0000"));
+        assertNotEquals(GramCodes.pack("a"), GramCodes.pack("\u0000a"));
+    }
+
+    @Test
+    public void charOverloads() {
+        assertEquals(GramCodes.pack('x'), GramCodes.pack("x"));
+        assertEquals(GramCodes.pack('x', 'y'), GramCodes.pack("xy"));
+        assertEquals(GramCodes.pack('x', 'y', 'z'), GramCodes.pack("xyz"));
+        assertEquals(GramCodes.pack("Foo bar", 4, 3), GramCodes.pack("bar"));
+    }
+
+    @Test
+    public void notPackable() {
+        assertEquals(GramCodes.pack(""), GramCodes.NONE);
+        assertEquals(GramCodes.pack("abcd"), GramCodes.NONE);
+        assertFalse(GramCodes.isValid(GramCodes.NONE));
+    }
+
+}
@@ -22,6 +22,7 @@ import org.junit.Test;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -173,4 +174,65 @@ public class NgramExtractorTest {
         assertEquals(ngrams, Arrays.asList(" F","Fo","oo","o "," b","ba","ar","r "));
     }
 
+
+    @Test
+    public void extractPackedGrams() {
+        NgramExtractor extractor = NgramExtractor.gramLengths(1, 2, 3);
+        List<String> grams = new ArrayList<>();
+        extractor.extractGrams("Foo", code -> grams.add(GramCodes.toString(code)));
+        //by position, the grams that end there:
+        assertEquals(grams, Arrays.asList("F", "o", "Fo", "o", "oo", "Foo"));
+    }
+
+    @Test
+    public void extractPackedGrams_sameAsStrings() {
+        List<NgramExtractor> extractors = Arrays.asList(
+                NgramExtractor.gramLengths(1, 2, 3),
+                NgramExtractor.gramLengths(3, 1),
+                NgramExtractors.standard(),
+                NgramExtractors.backwards(),
+                NgramExtractor.gramLength(2).textPadding('_')
+        );
+        for (NgramExtractor extractor : extractors) {
+            for (String text : Arrays.asList("", "a", " ", "Foo bar", " Foo bar ", "Foo bar ", "AB CDE fg", "__x_")) {
+                List<String> expected = new ArrayList<>(extractor.extractGrams(text));
+                List<String> actual = new ArrayList<>();
+                extractor.extractGrams(text, code -> actual.add(GramCodes.toString(code)));
+                Collections.sort(expected);
+                Collections.sort(actual);
+                assertEquals(text, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void view_sameAsExtractGrams() {
+        List<NgramExtractor> extractors = Arrays.asList(
+                NgramExtractor.gramLengths(1, 2, 3),
+                NgramExtractor.gramLengths(3, 1),
+                NgramExtractors.standard(),
+                NgramExtractors.backwards(),
+                NgramExtractor.gramLength(2).textPadding('_')
+        );
+        for (NgramExtractor extractor : extractors) {
+            GramView view = extractor.newView();
+            for (String text : Arrays.asList("", "a", " ", "Foo bar", " Foo bar ", "Foo bar ", "AB CDE fg", "__x_")) {
+                view.reset(text);
+                List<String> used = new ArrayList<>();
+                for (int i = 0; i < view.size(); i++) {
+                    if (view.isUsed(i)) used.add(GramCodes.toString(view.code(i)));
+                }
+                assertEquals(text, extractor.extractGrams(text), used);
+                assertEquals(text, used.isEmpty(), view.isEmpty());
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void extractPackedGrams_tooLong() {
+        NgramExtractor extractor = NgramExtractor.gramLengths(2, 4);
+        assertFalse(extractor.isPackable());
+        extractor.extractGrams("Foo bar", code -> {});
+    }
+
 }
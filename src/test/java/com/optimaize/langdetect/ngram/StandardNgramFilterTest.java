@@ -54,4 +54,11 @@ public class StandardNgramFilterTest {
         assertFalse(filter.use("a c"));
     }
 
+    @Test
+    public void packedSameAsString() throws Exception {
+        for (String gram : new String[]{"a", "A", " ", "ab", "Ab", "AB", "a ", " a", "abc", "ABC", "AbC", "ab ", " ab", "a c", "A C"}) {
+            assertEquals(gram, filter.use(gram), filter.use(GramCodes.pack(gram)));
+        }
+    }
+
 }